@@ -0,0 +1,95 @@
+/*
+ * Copyright 2013 Chris Banes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.co.senab.actionbarpulltorefresh.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import uk.co.senab.actionbarpulltorefresh.gesture.HitTestIndex;
+
+/**
+ * Measures resolving an ACTION_DOWN to the refreshable views under it, for a screen laid out as a
+ * vertical feed of pullable views with a full screen pullable container behind them.
+ */
+@State(Scope.Thread)
+public class HitTestIndexBenchmark {
+
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int VIEW_HEIGHT = 240;
+    private static final int POINT_COUNT = 64;
+
+    @Param({"1", "10", "50", "200"})
+    public int viewCount;
+
+    private final HitTestIndex index = new HitTestIndex();
+    private final int[] pointsX = new int[POINT_COUNT];
+    private final int[] pointsY = new int[POINT_COUNT];
+    private int[] hits;
+    private int point;
+
+    @Setup
+    public void setup() {
+        index.clear();
+
+        // Full screen container first, then the feed items within it
+        index.add(0, 0, 0, 0, SCREEN_WIDTH, viewCount * VIEW_HEIGHT);
+        for (int i = 1; i < viewCount; i++) {
+            index.add(i, 1, 0, i * VIEW_HEIGHT, SCREEN_WIDTH, (i + 1) * VIEW_HEIGHT);
+        }
+        hits = new int[index.size()];
+
+        // Spread the touch points over the whole feed, deterministically
+        for (int i = 0; i < POINT_COUNT; i++) {
+            pointsX[i] = (i * 97) % SCREEN_WIDTH;
+            pointsY[i] = (i * 7919) % (viewCount * VIEW_HEIGHT);
+        }
+    }
+
+    /**
+     * Find the top-most view under the touch point.
+     */
+    @Benchmark
+    public int hitTest() {
+        final int i = point++ & (POINT_COUNT - 1);
+        return index.hitTest(pointsX[i], pointsY[i], index.size() - 1);
+    }
+
+    /**
+     * Find every view under the touch point, innermost first, as the attacher does on
+     * ACTION_DOWN.
+     */
+    @Benchmark
+    public int hitTestAll() {
+        final int i = point++ & (POINT_COUNT - 1);
+        return index.hitTestAll(pointsX[i], pointsY[i], hits);
+    }
+
+    /**
+     * Rebuild the index, as happens after a layout pass or scroll.
+     */
+    @Benchmark
+    public int rebuild() {
+        index.clear();
+        index.add(0, 0, 0, 0, SCREEN_WIDTH, viewCount * VIEW_HEIGHT);
+        for (int i = 1; i < viewCount; i++) {
+            index.add(i, 1, 0, i * VIEW_HEIGHT, SCREEN_WIDTH, (i + 1) * VIEW_HEIGHT);
+        }
+        return index.size();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2013 Chris Banes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.co.senab.actionbarpulltorefresh.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import uk.co.senab.actionbarpulltorefresh.gesture.PullGestureEngine;
+
+/**
+ * Measures the gesture decision path: starting a gesture on ACTION_DOWN, progress calculation
+ * for each ACTION_MOVE and the refresh threshold check on ACTION_UP.
+ */
+@State(Scope.Thread)
+public class PullGestureEngineBenchmark {
+
+    private static final float TOUCH_SLOP = 16f;
+    private static final float DOWN_Y = 100f;
+    private static final float REFRESH_DISTANCE = 600f;
+    private static final int MOVES_PER_GESTURE = 32;
+    private static final float MOVE_STEP = 24f;
+
+    private PullGestureEngine engine;
+    private float progress;
+    private float moveY;
+    private int movesInGesture;
+
+    @Setup
+    public void setup() {
+        engine = new PullGestureEngine(TOUCH_SLOP, new PullGestureEngine.Callback() {
+            @Override
+            public void onStateChanged(int oldState, int newState) {
+                if (newState == PullGestureEngine.STATE_IDLE) {
+                    engine.reset();
+                }
+            }
+
+            @Override
+            public void onPulled(float distance) {
+                progress = distance / REFRESH_DISTANCE;
+            }
+        });
+    }
+
+    /**
+     * ACTION_DOWN on a view which is ready to be pulled from the top.
+     */
+    @Benchmark
+    public int down() {
+        engine.onDown(0f, DOWN_Y, PullGestureEngine.EDGE_TOP);
+        final int state = engine.getState();
+        engine.reset();
+        return state;
+    }
+
+    /**
+     * A single ACTION_MOVE while pulling, including the progress calculation. The pull is
+     * restarted every {@link #MOVES_PER_GESTURE} moves, so that moveY stays small enough for each
+     * step to change it. Otherwise the float would stop changing after millions of invocations,
+     * and every move would take the early return for a repeated sample.
+     */
+    @Benchmark
+    public float move() {
+        if (movesInGesture == MOVES_PER_GESTURE || !engine.isBeingDragged()) {
+            startPull();
+            moveY = DOWN_Y + TOUCH_SLOP + 1f;
+            movesInGesture = 0;
+        }
+        movesInGesture++;
+        moveY += MOVE_STEP;
+        engine.onMove(moveY);
+        return progress;
+    }
+
+    /**
+     * ACTION_UP after a pull, including the refresh threshold check.
+     */
+    @Benchmark
+    public boolean release() {
+        startPull();
+        engine.onRelease(engine.getPullBeginY() + REFRESH_DISTANCE);
+        final boolean refresh = engine.getPeakPullDistance() >= REFRESH_DISTANCE;
+        engine.reset();
+        return refresh;
+    }
+
+    /**
+     * A complete scripted gesture, from ACTION_DOWN through ACTION_MOVEs to ACTION_UP.
+     */
+    @Benchmark
+    public boolean gesture() {
+        startPull();
+        float y = DOWN_Y + TOUCH_SLOP + 1f;
+        for (int i = 0; i < MOVES_PER_GESTURE; i++) {
+            y += MOVE_STEP;
+            engine.onMove(y);
+        }
+        engine.onRelease(y);
+        final boolean refresh = engine.getPeakPullDistance() >= REFRESH_DISTANCE;
+        engine.reset();
+        return refresh;
+    }
+
+    private void startPull() {
+        engine.reset();
+        engine.onDown(0f, DOWN_Y, PullGestureEngine.EDGE_TOP);
+        engine.onInterceptMove(0f, DOWN_Y + TOUCH_SLOP + 1f);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2013 Chris Banes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.co.senab.actionbarpulltorefresh.gesture;
+
+/**
+ * Spatial index of rectangles, used to resolve a touch point to the rectangles which contain it.
+ * <p/>
+ * Entries are kept sorted by their top edge, so that a hit test is a binary search followed by a
+ * short backwards walk. Each entry carries an id, which callers use to map an entry back to their
+ * own data, and a depth, which orders entries that overlap: when one view contains another, the
+ * deeper (inner) one is returned first by {@link #hitTestAll(int, int, int[])}.
+ */
+public class HitTestIndex {
+
+    private static final int BOUNDS_LEFT = 0;
+    private static final int BOUNDS_TOP = 1;
+    private static final int BOUNDS_RIGHT = 2;
+    private static final int BOUNDS_BOTTOM = 3;
+    private static final int BOUNDS_SIZE = 4;
+
+    private int[] ids = new int[0];
+    private int[] depths = new int[0];
+    private int[] bounds = new int[0];
+
+    /**
+     * The maximum bottom of all entries up to (and including) each position. Used to stop the
+     * backwards walk in {@link #hitTest(int, int, int)} as early as possible.
+     */
+    private int[] maxBottoms = new int[0];
+    private boolean maxBottomsDirty;
+
+    private int size;
+
+    /**
+     * Remove all entries from the index.
+     */
+    public void clear() {
+        size = 0;
+        maxBottomsDirty = false;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (ids.length < capacity) {
+            final int[] newIds = new int[capacity];
+            final int[] newDepths = new int[capacity];
+            final int[] newBounds = new int[capacity * BOUNDS_SIZE];
+            System.arraycopy(ids, 0, newIds, 0, size);
+            System.arraycopy(depths, 0, newDepths, 0, size);
+            System.arraycopy(bounds, 0, newBounds, 0, size * BOUNDS_SIZE);
+            ids = newIds;
+            depths = newDepths;
+            bounds = newBounds;
+            maxBottoms = new int[capacity];
+            maxBottomsDirty = true;
+        }
+    }
+
+    /**
+     * Add an entry to the index, with a depth of 0.
+     */
+    public void add(int id, int left, int top, int right, int bottom) {
+        add(id, 0, left, top, right, bottom);
+    }
+
+    /**
+     * Add an entry to the index.
+     *
+     * @param depth The depth of the entry, such as its view's depth in the view hierarchy. Used
+     *              to order overlapping entries.
+     */
+    public void add(int id, int depth, int left, int top, int right, int bottom) {
+        ensureCapacity(size + 1);
+
+        // Simple insertion sort, the number of entries is small and they are rarely rebuilt
+        int i = size;
+        while (i > 0 && bounds[(i - 1) * BOUNDS_SIZE + BOUNDS_TOP] > top) {
+            ids[i] = ids[i - 1];
+            depths[i] = depths[i - 1];
+            System.arraycopy(bounds, (i - 1) * BOUNDS_SIZE, bounds, i * BOUNDS_SIZE, BOUNDS_SIZE);
+            i--;
+        }
+
+        ids[i] = id;
+        depths[i] = depth;
+        final int offset = i * BOUNDS_SIZE;
+        bounds[offset + BOUNDS_LEFT] = left;
+        bounds[offset + BOUNDS_TOP] = top;
+        bounds[offset + BOUNDS_RIGHT] = right;
+        bounds[offset + BOUNDS_BOTTOM] = bottom;
+        size++;
+        maxBottomsDirty = true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int position) {
+        return ids[position];
+    }
+
+    public int getLeft(int position) {
+        return bounds[position * BOUNDS_SIZE + BOUNDS_LEFT];
+    }
+
+    public int getTop(int position) {
+        return bounds[position * BOUNDS_SIZE + BOUNDS_TOP];
+    }
+
+    public int getDepth(int position) {
+        return depths[position];
+    }
+
+    /**
+     * Find the next entry, searching backwards from {@code fromPosition}, whose bounds contain
+     * the given point.
+     *
+     * @return the position of the entry, or -1 if there are no more matching entries.
+     */
+    public int hitTest(int x, int y, int fromPosition) {
+        if (maxBottomsDirty) {
+            computeMaxBottoms();
+        }
+
+        int i = Math.min(fromPosition, lastPositionWithTopAtOrAbove(y));
+        for (; i >= 0; i--) {
+            if (maxBottoms[i] <= y) {
+                // No entry at or before this position reaches down to y
+                return -1;
+            }
+            final int offset = i * BOUNDS_SIZE;
+            if (x >= bounds[offset + BOUNDS_LEFT] && x < bounds[offset + BOUNDS_RIGHT]
+                    && y < bounds[offset + BOUNDS_BOTTOM]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find every entry whose bounds contain the given point, ordered deepest first. Entries with
+     * the same depth are ordered by descending top edge.
+     *
+     * @param outPositions Receives the positions of the matching entries. Must be able to hold
+     *                     {@link #size()} positions.
+     * @return the number of matching entries.
+     */
+    public int hitTestAll(int x, int y, int[] outPositions) {
+        int count = 0;
+        for (int i = hitTest(x, y, size - 1); i >= 0; i = hitTest(x, y, i - 1)) {
+            // Insertion sort by depth. There are only ever a few matches
+            final int depth = depths[i];
+            int j = count++;
+            while (j > 0 && depths[outPositions[j - 1]] < depth) {
+                outPositions[j] = outPositions[j - 1];
+                j--;
+            }
+            outPositions[j] = i;
+        }
+        return count;
+    }
+
+    private void computeMaxBottoms() {
+        int maxBottom = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            maxBottom = Math.max(maxBottom, bounds[i * BOUNDS_SIZE + BOUNDS_BOTTOM]);
+            maxBottoms[i] = maxBottom;
+        }
+        maxBottomsDirty = false;
+    }
+
+    private int lastPositionWithTopAtOrAbove(int y) {
+        int low = 0, high = size - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (bounds[mid * BOUNDS_SIZE + BOUNDS_TOP] <= y) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+}
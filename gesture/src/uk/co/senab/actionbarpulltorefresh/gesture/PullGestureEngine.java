@@ -0,0 +1,244 @@
+/*
+ * Copyright 2013 Chris Banes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.co.senab.actionbarpulltorefresh.gesture;
+
+/**
+ * The pull gesture state machine. It has no dependencies on the Android framework: it is fed
+ * primitive touch samples and reports state transitions through a {@link Callback}.
+ * <p/>
+ * The expected call sequence for a gesture is {@link #onDown(float, float, int)}, followed by
+ * {@link #onInterceptMove(float, float)} until the engine is {@link #STATE_PULLING}, then
+ * {@link #onMove(float)} for each sample and finally {@link #onRelease(float)}. The owner calls
+ * {@link #reset()} once it has finished handling the gesture.
+ */
+public class PullGestureEngine {
+
+    /**
+     * No gesture is in progress, or the current gesture can not become a pull.
+     */
+    public static final int STATE_IDLE = 0;
+
+    /**
+     * The gesture started on a view which is ready to be pulled, but has not yet moved far
+     * enough to be a pull.
+     */
+    public static final int STATE_PENDING = 1;
+
+    /**
+     * The user is currently pulling.
+     */
+    public static final int STATE_PULLING = 2;
+
+    public static final int EDGE_NONE = 0;
+    public static final int EDGE_TOP = 1;
+    public static final int EDGE_BOTTOM = 1 << 1;
+
+    public interface Callback {
+        /**
+         * Called when the engine has moved from {@code oldState} to {@code newState} because of
+         * a touch sample. Calls to {@link #reset()} do not result in a callback.
+         */
+        public void onStateChanged(int oldState, int newState);
+
+        /**
+         * Called for each sample while pulling.
+         *
+         * @param distance The distance pulled so far, in the direction of the pull.
+         */
+        public void onPulled(float distance);
+    }
+
+    private final float touchSlop;
+    private final Callback callback;
+
+    private int state = STATE_IDLE;
+    private boolean isOnTop, isOnBottom;
+    private float initialMotionX, initialMotionY;
+    private float lastMotionY, pullBeginY;
+    private boolean hasLastMotionY;
+
+    public PullGestureEngine(float touchSlop, Callback callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("callback cannot be null");
+        }
+        this.touchSlop = touchSlop;
+        this.callback = callback;
+        reset();
+    }
+
+    /**
+     * Start a new gesture.
+     *
+     * @param edges The edges which the touched view is ready to be pulled from. A combination of
+     *              {@link #EDGE_TOP} and {@link #EDGE_BOTTOM}, or {@link #EDGE_NONE}.
+     */
+    public void onDown(float x, float y, int edges) {
+        isOnTop = (edges & EDGE_TOP) != 0;
+        isOnBottom = (edges & EDGE_BOTTOM) != 0;
+
+        if (edges != EDGE_NONE) {
+            initialMotionX = x;
+            initialMotionY = y;
+            setState(STATE_PENDING);
+        }
+    }
+
+    /**
+     * Feed a sample while deciding whether the gesture is a pull.
+     *
+     * @return true if the gesture is now a pull.
+     */
+    public boolean onInterceptMove(float x, float y) {
+        if (state == STATE_PENDING) {
+            final float yDiff = y - initialMotionY;
+            final float xDiff = x - initialMotionX;
+
+            if (isOnTop) {
+                if (yDiff > xDiff && yDiff > touchSlop) {
+                    startPull(y);
+                } else if (yDiff < -touchSlop) {
+                    setState(STATE_IDLE);
+                }
+            } else if (isOnBottom) {
+                if (Math.abs(yDiff) > xDiff && yDiff < -touchSlop) {
+                    startPull(y);
+                } else if (yDiff > touchSlop) {
+                    setState(STATE_IDLE);
+                }
+            }
+        }
+        return state == STATE_PULLING;
+    }
+
+    /**
+     * Start a pull straight away, without waiting for the touch slop to be passed. Used when the
+     * pull has been detected by some other means, such as nested scrolling.
+     *
+     * @param edge The edge being pulled from, either {@link #EDGE_TOP} or {@link #EDGE_BOTTOM}.
+     */
+    public void onPullDetected(int edge, float y) {
+        isOnTop = edge == EDGE_TOP;
+        isOnBottom = edge == EDGE_BOTTOM;
+        initialMotionY = y;
+        startPull(y);
+    }
+
+    /**
+     * Feed a sample while pulling. If the user moves back past the touch slop, the pull ends.
+     */
+    public void onMove(float y) {
+        if (state != STATE_PULLING) return;
+
+        // The first sample of a pull is always recorded
+        if (hasLastMotionY) {
+            if (y == lastMotionY) return;
+
+            final float yDx = isOnTop ? (y - lastMotionY) : (lastMotionY - y);
+            if (yDx < -touchSlop) {
+                setState(STATE_IDLE);
+                return;
+            }
+
+            // Only record the y motion if the user has moved in the pull direction
+            if (yDx <= 0f) {
+                callback.onPulled(getPullDistance(y));
+                return;
+            }
+        }
+
+        lastMotionY = y;
+        hasLastMotionY = true;
+        callback.onPulled(getPullDistance(y));
+    }
+
+    /**
+     * Feed a sample delivered with, or batched before, the end of the gesture. This only records
+     * the furthest point of the pull, and never results in a callback.
+     */
+    public void onRelease(float y) {
+        if (state != STATE_PULLING) return;
+
+        if (!hasLastMotionY || (isOnTop ? y > lastMotionY : y < lastMotionY)) {
+            lastMotionY = y;
+            hasLastMotionY = true;
+        }
+    }
+
+    /**
+     * Reset the touch state, ready for the next gesture. The edges the last gesture started from
+     * are retained.
+     */
+    public void reset() {
+        state = STATE_IDLE;
+        initialMotionX = initialMotionY = lastMotionY = pullBeginY = -1f;
+        hasLastMotionY = false;
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public boolean isBeingDragged() {
+        return state == STATE_PULLING;
+    }
+
+    public boolean isOnTop() {
+        return isOnTop;
+    }
+
+    public boolean isOnBottom() {
+        return isOnBottom;
+    }
+
+    /**
+     * @return The y co-ordinate at which the current pull began.
+     */
+    public float getPullBeginY() {
+        return pullBeginY;
+    }
+
+    /**
+     * @return The furthest distance pulled during the current pull, in the direction of the pull.
+     */
+    public float getPeakPullDistance() {
+        if (!hasLastMotionY) {
+            return 0f;
+        } else if (isOnTop) {
+            return lastMotionY - pullBeginY;
+        } else if (isOnBottom) {
+            return pullBeginY - lastMotionY;
+        }
+        return 0f;
+    }
+
+    private float getPullDistance(float y) {
+        return isOnTop ? (y - pullBeginY) : (pullBeginY - y);
+    }
+
+    private void startPull(float y) {
+        pullBeginY = y;
+        setState(STATE_PULLING);
+    }
+
+    private void setState(int newState) {
+        final int oldState = state;
+        if (oldState != newState) {
+            state = newState;
+            callback.onStateChanged(oldState, newState);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2013 Chris Banes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.co.senab.actionbarpulltorefresh.gesture;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the DOWN-MOVE-UP touch path does not allocate: resolving ACTION_DOWN against the
+ * hit-test index, then feeding a scripted gesture through the engine.
+ * <p/>
+ * Allocations are counted with the HotSpot per-thread allocation counter. Any allocation on the
+ * path would be multiplied by the number of gestures, so the test only allows for the few bytes
+ * which reading the counter itself may allocate.
+ */
+public class TouchPathAllocationTest {
+
+    private static final float TOUCH_SLOP = 16f;
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int VIEW_HEIGHT = 240;
+    private static final int VIEW_COUNT = 20;
+    private static final int MOVES_PER_GESTURE = 32;
+    private static final int WARM_UP_GESTURES = 20000;
+    private static final int MEASURED_GESTURES = 10000;
+
+    private HitTestIndex index;
+    private int[] hits;
+    private PullGestureEngine engine;
+    private int pulls;
+    private float lastDistance;
+
+    @Before
+    public void setUp() {
+        // A full screen container with a column of views within it
+        index = new HitTestIndex();
+        index.add(0, 0, 0, 0, SCREEN_WIDTH, VIEW_COUNT * VIEW_HEIGHT);
+        for (int i = 1; i < VIEW_COUNT; i++) {
+            index.add(i, 1, 0, i * VIEW_HEIGHT, SCREEN_WIDTH, (i + 1) * VIEW_HEIGHT);
+        }
+        hits = new int[index.size()];
+
+        engine = new PullGestureEngine(TOUCH_SLOP, new PullGestureEngine.Callback() {
+            @Override
+            public void onStateChanged(int oldState, int newState) {
+                if (newState == PullGestureEngine.STATE_PULLING) {
+                    pulls++;
+                }
+            }
+
+            @Override
+            public void onPulled(float distance) {
+                lastDistance = distance;
+            }
+        });
+    }
+
+    @Test
+    public void scriptedGestureIsAPull() {
+        pulls = 0;
+        runGesture(5);
+        assertEquals(1, pulls);
+        assertTrue(lastDistance > 0f);
+    }
+
+    @Test
+    public void touchPathDoesNotAllocate() {
+        final com.sun.management.ThreadMXBean threadBean = getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+
+        // Let the JIT compile the path first
+        for (int i = 0; i < WARM_UP_GESTURES; i++) {
+            runGesture(i);
+        }
+
+        // How much reading the counter allocates by itself
+        final long counterStart = threadBean.getThreadAllocatedBytes(threadId);
+        final long counterOverhead = threadBean.getThreadAllocatedBytes(threadId) - counterStart;
+
+        final long start = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_GESTURES; i++) {
+            runGesture(i);
+        }
+        final long allocated = threadBean.getThreadAllocatedBytes(threadId) - start;
+
+        assertTrue("Touch path allocated " + allocated + " bytes over " + MEASURED_GESTURES
+                + " gestures", allocated <= counterOverhead);
+    }
+
+    /**
+     * ACTION_DOWN on one of the views, then ACTION_MOVEs past the touch slop and ACTION_UP.
+     */
+    private void runGesture(int seed) {
+        final int downX = (seed * 97) % SCREEN_WIDTH;
+        final int downY = (seed * 7919) % (VIEW_COUNT * VIEW_HEIGHT);
+
+        engine.reset();
+        final int hitCount = index.hitTestAll(downX, downY, hits);
+        final int edges = hitCount > 0 ? PullGestureEngine.EDGE_TOP : PullGestureEngine.EDGE_NONE;
+        engine.onDown(downX, downY, edges);
+
+        float y = downY;
+        for (int i = 0; i < MOVES_PER_GESTURE && engine.getState() != PullGestureEngine.STATE_IDLE;
+                i++) {
+            y += 8f;
+            if (engine.isBeingDragged()) {
+                engine.onMove(y);
+            } else {
+                engine.onInterceptMove(downX, y);
+            }
+        }
+
+        engine.onRelease(y);
+        lastDistance = engine.getPeakPullDistance();
+        engine.reset();
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+
+        final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        return threadBean;
+    }
+}
@@ -43,6 +43,7 @@ public class ActionBarPullToRefresh {
         private OnRefreshBottomListener onRefreshBottomListener;
         private ViewGroup mViewGroupToInsertInto;
         private HashMap<Class, ViewDelegate> mViewDelegates;
+        private HashMap<View, ViewDelegate> mViewDelegatesForViews;
 
         private SetupWizard(Activity activity) {
             this.activity = activity;
@@ -79,6 +80,20 @@ public class ActionBarPullToRefresh {
             return this;
         }
 
+        /**
+         * Use the given delegate for just {@code view}, in preference to any delegate for its
+         * class. This allows a delegate which holds state for one view, such as an
+         * {@link uk.co.senab.actionbarpulltorefresh.library.viewdelegates.AbsListViewDelegate}
+         * tracking a list's scroll state, to be used.
+         */
+        public SetupWizard useViewDelegate(View view, ViewDelegate delegate) {
+            if (mViewDelegatesForViews == null) {
+                mViewDelegatesForViews = new HashMap<View, ViewDelegate>();
+            }
+            mViewDelegatesForViews.put(view, delegate);
+            return this;
+        }
+
         public SetupWizard listener(OnRefreshListener listener) {
             onRefreshListener = listener;
             return this;
@@ -106,7 +121,21 @@ public class ActionBarPullToRefresh {
 
             pullToRefreshLayout.setPullToRefreshAttacher(attacher);
 
-            // First add the pullable child views
+            // First set any custom view delegates, so that they are used as the views are added
+            if (mViewDelegates != null) {
+                final Set<Map.Entry<Class, ViewDelegate>> entries = mViewDelegates.entrySet();
+                for (final Map.Entry<Class, ViewDelegate> entry : entries) {
+                    attacher.useViewDelegate(entry.getKey(), entry.getValue());
+                }
+            }
+            if (mViewDelegatesForViews != null) {
+                for (final Map.Entry<View, ViewDelegate> entry
+                        : mViewDelegatesForViews.entrySet()) {
+                    attacher.useViewDelegate(entry.getKey(), entry.getValue());
+                }
+            }
+
+            // Now add the pullable child views
             if (refreshableViewIds != null) {
                 pullToRefreshLayout.addChildrenAsPullable(refreshableViewIds);
             } else if (refreshableViews != null) {
@@ -114,14 +143,6 @@ public class ActionBarPullToRefresh {
             } else {
                 pullToRefreshLayout.addAllChildrenAsPullable();
             }
-
-            // Now set any custom view delegates
-            if (mViewDelegates != null) {
-                final Set<Map.Entry<Class, ViewDelegate>> entries = mViewDelegates.entrySet();
-                for (final Map.Entry<Class, ViewDelegate> entry : entries) {
-                    attacher.useViewDelegate(entry.getKey(), entry.getValue());
-                }
-            }
         }
 
         private static void insertLayoutIntoViewGroup(ViewGroup viewGroup,
@@ -16,10 +16,6 @@
 
 package uk.co.senab.actionbarpulltorefresh.library;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.AnimatorSet;
-import android.animation.ObjectAnimator;
 import android.app.Activity;
 import android.content.Context;
 import android.content.res.Configuration;
@@ -65,6 +61,11 @@ public class DefaultHeaderTransformer extends HeaderTransformer {
 
     private final Interpolator mInterpolator = new AccelerateInterpolator();
 
+    /**
+     * Created when the header is first animated, and re-used for every animation after that.
+     */
+    private HeaderAnimationController mAnimationController;
+
     protected DefaultHeaderTransformer() {
         final int min = getMinimumApiLevel();
         if (Build.VERSION.SDK_INT < min) {
@@ -76,6 +77,11 @@ public class DefaultHeaderTransformer extends HeaderTransformer {
 
     @Override
     public void onViewCreated(Activity activity, View headerView) {
+        // Any animations are for the previous header view
+        if (mAnimationController != null) {
+            mAnimationController.cancel();
+            mAnimationController = null;
+        }
         mHeaderView = headerView;
 
         // Get ProgressBar and TextView
@@ -126,7 +132,10 @@ public class DefaultHeaderTransformer extends HeaderTransformer {
             mHeaderTextView.setText(mPullRefreshLabel);
         }
 
-        // Reset the Content Layout
+        // Reset the Content Layout, making sure a minimize animation doesn't fade it out again
+        if (mAnimationController != null) {
+            mAnimationController.cancelMinimize();
+        }
         if (mContentLayout != null) {
             mContentLayout.setVisibility(View.VISIBLE);
             Compat.setAlpha(mContentLayout, 1f);
@@ -155,7 +164,8 @@ public class DefaultHeaderTransformer extends HeaderTransformer {
 
     @Override
     public void onReleaseToRefresh() {
-        if (mHeaderTextView != null) {
+        // This is called for every move past the threshold, so only update the text once
+        if (mHeaderTextView != null && mHeaderTextView.getText() != mReleaseLabel) {
             mHeaderTextView.setText(mReleaseLabel);
         }
         if (mHeaderProgressBar != null) {
@@ -167,7 +177,7 @@ public class DefaultHeaderTransformer extends HeaderTransformer {
     public void onRefreshMinimized() {
         // Here we fade out most of the header, leaving just the progress bar
         if (mContentLayout != null) {
-            ObjectAnimator.ofFloat(mContentLayout, "alpha", 1f, 0f).start();
+            getAnimationController().animateMinimize();
         }
     }
 
@@ -177,17 +187,15 @@ public class DefaultHeaderTransformer extends HeaderTransformer {
 
     @Override
     public boolean showHeaderView() {
-        final boolean changeVis = mHeaderView.getVisibility() != View.VISIBLE;
+        final boolean isHidden = mHeaderView.getVisibility() != View.VISIBLE;
+
+        // A header which is still animating out is reversed from where it is
+        final boolean changeVis = isHidden
+                || (mAnimationController != null && mAnimationController.isHiding());
 
         if (changeVis) {
             mHeaderView.setVisibility(View.VISIBLE);
-            AnimatorSet animSet = new AnimatorSet();
-            ObjectAnimator transAnim = ObjectAnimator.ofFloat(mContentLayout, "translationY",
-                    -mContentLayout.getHeight(), 0f);
-            ObjectAnimator alphaAnim = ObjectAnimator.ofFloat(mHeaderView, "alpha", 0f, 1f);
-            animSet.playTogether(transAnim, alphaAnim);
-            animSet.setDuration(mAnimationDuration);
-            animSet.start();
+            getAnimationController().animateShow(isHidden);
         }
 
         return changeVis;
@@ -195,24 +203,13 @@ public class DefaultHeaderTransformer extends HeaderTransformer {
 
     @Override
     public boolean hideHeaderView() {
-        final boolean changeVis = mHeaderView.getVisibility() != View.GONE;
+        final boolean changeVis = mHeaderView.getVisibility() != View.GONE
+                && (mAnimationController == null || !mAnimationController.isHiding());
 
         if (changeVis) {
-            Animator animator;
-            if (mContentLayout.getAlpha() >= 0.5f) {
-                // If the content layout is showing, translate and fade out
-                animator = new AnimatorSet();
-                ObjectAnimator transAnim = ObjectAnimator.ofFloat(mContentLayout, "translationY",
-                        0f, -mContentLayout.getHeight());
-                ObjectAnimator alphaAnim = ObjectAnimator.ofFloat(mHeaderView, "alpha", 1f, 0f);
-                ((AnimatorSet) animator).playTogether(transAnim, alphaAnim);
-            } else {
-                // If the content layout isn't showing (minimized), just fade out
-                animator = ObjectAnimator.ofFloat(mHeaderView, "alpha", 1f, 0f);
-            }
-            animator.setDuration(mAnimationDuration);
-            animator.addListener(new HideAnimationCallback());
-            animator.start();
+            // If the content layout is showing, translate and fade out. If it isn't showing
+            // (minimized), just fade out
+            getAnimationController().animateHide(mContentLayout.getAlpha() >= 0.5f);
         }
 
         return changeVis;
@@ -347,6 +344,14 @@ public class DefaultHeaderTransformer extends HeaderTransformer {
         styleAttrs.recycle();
     }
 
+    private HeaderAnimationController getAnimationController() {
+        if (mAnimationController == null) {
+            mAnimationController = new HeaderAnimationController(mHeaderView, mContentLayout,
+                    mAnimationDuration, new HideAnimationCallback());
+        }
+        return mAnimationController;
+    }
+
     private void applyProgressBarStyle() {
         RelativeLayout.LayoutParams lp = new RelativeLayout.LayoutParams(
                 RelativeLayout.LayoutParams.MATCH_PARENT, mProgressBarHeight);
@@ -425,9 +430,9 @@ public class DefaultHeaderTransformer extends HeaderTransformer {
         return Build.VERSION_CODES.ICE_CREAM_SANDWICH;
     }
 
-    class HideAnimationCallback extends AnimatorListenerAdapter {
+    class HideAnimationCallback implements Runnable {
         @Override
-        public void onAnimationEnd(Animator animation) {
+        public void run() {
             View headerView = getHeaderView();
             if (headerView != null) {
                 headerView.setVisibility(View.GONE);
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2013 Chris Banes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.co.senab.actionbarpulltorefresh.library;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.View;
+
+/**
+ * Runs the show, hide and minimize animations of {@link DefaultHeaderTransformer}'s header.
+ * <p/>
+ * Each animated property has one {@link ValueAnimator}, which is created once and re-used. It
+ * always animates from 0 to 1, and an update listener maps the animated fraction onto the start
+ * and end values of the current animation. So starting an animation only sets two fields and the
+ * duration, and doesn't rebuild the animator's keyframes. The view's setters are called directly,
+ * so no reflection or boxing is involved.
+ * <p/>
+ * Starting an animation cancels the one running on the same property and continues from the
+ * property's current value, so a show which interrupts a hide (or vice versa) reverses it
+ * smoothly, taking only as long as the remaining distance needs.
+ */
+@TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+final class HeaderAnimationController {
+
+    private final View mHeaderView;
+    private final View mContentLayout;
+    private final long mDuration;
+    private final Runnable mHiddenCallback;
+
+    private final PropertyAnimation mHeaderAlphaAnimation;
+    private final PropertyAnimation mContentTranslationAnimation;
+    private final PropertyAnimation mContentAlphaAnimation;
+
+    private boolean mIsHiding;
+    private boolean mHideCanceled;
+
+    /**
+     * @param hiddenCallback Run when a hide animation has finished without being interrupted.
+     */
+    HeaderAnimationController(View headerView, View contentLayout, long duration,
+            Runnable hiddenCallback) {
+        mHeaderView = headerView;
+        mContentLayout = contentLayout;
+        mDuration = duration;
+        mHiddenCallback = hiddenCallback;
+
+        mHeaderAlphaAnimation = new PropertyAnimation(headerView, PropertyAnimation.ALPHA);
+        mHeaderAlphaAnimation.addListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationCancel(Animator animation) {
+                mHideCanceled = true;
+            }
+
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                if (mIsHiding && !mHideCanceled) {
+                    mIsHiding = false;
+                    mHiddenCallback.run();
+                }
+            }
+        });
+
+        if (contentLayout != null) {
+            mContentTranslationAnimation = new PropertyAnimation(contentLayout,
+                    PropertyAnimation.TRANSLATION_Y);
+            mContentAlphaAnimation = new PropertyAnimation(contentLayout, PropertyAnimation.ALPHA);
+        } else {
+            mContentTranslationAnimation = null;
+            mContentAlphaAnimation = null;
+        }
+    }
+
+    /**
+     * @return true if a hide animation is running.
+     */
+    boolean isHiding() {
+        return mIsHiding;
+    }
+
+    /**
+     * Fade the header in and slide the content layout down.
+     *
+     * @param fromHidden true if the header was not visible, in which case the animation starts
+     *                   from fully hidden rather than from the current values.
+     */
+    void animateShow(boolean fromHidden) {
+        mIsHiding = false;
+
+        if (fromHidden) {
+            mHeaderView.setAlpha(0f);
+            if (mContentLayout != null) {
+                mContentLayout.setTranslationY(-mContentLayout.getHeight());
+            }
+        }
+
+        final long duration = getRemainingDuration(mHeaderView.getAlpha(), 1f);
+        mHeaderAlphaAnimation.start(mHeaderView.getAlpha(), 1f, duration);
+        if (mContentTranslationAnimation != null) {
+            mContentTranslationAnimation.start(mContentLayout.getTranslationY(), 0f, duration);
+        }
+    }
+
+    /**
+     * Fade the header out, and optionally slide the content layout up.
+     */
+    void animateHide(boolean translateContent) {
+        final long duration = getRemainingDuration(mHeaderView.getAlpha(), 0f);
+
+        if (mContentTranslationAnimation != null) {
+            if (translateContent) {
+                mContentTranslationAnimation.start(mContentLayout.getTranslationY(),
+                        -mContentLayout.getHeight(), duration);
+            } else {
+                mContentTranslationAnimation.cancel();
+            }
+        }
+
+        // Cancel first, so that the hide doesn't see its own cancellation
+        mHeaderAlphaAnimation.cancel();
+        mIsHiding = true;
+        mHideCanceled = false;
+        mHeaderAlphaAnimation.start(mHeaderView.getAlpha(), 0f, duration);
+    }
+
+    /**
+     * Fade out the content layout, leaving just the progress bar.
+     */
+    void animateMinimize() {
+        if (mContentAlphaAnimation != null) {
+            final float alpha = mContentLayout.getAlpha();
+            mContentAlphaAnimation.start(alpha, 0f, getRemainingDuration(alpha, 0f));
+        }
+    }
+
+    void cancelMinimize() {
+        if (mContentAlphaAnimation != null) {
+            mContentAlphaAnimation.cancel();
+        }
+    }
+
+    void cancel() {
+        mIsHiding = false;
+        mHeaderAlphaAnimation.cancel();
+        if (mContentTranslationAnimation != null) {
+            mContentTranslationAnimation.cancel();
+            mContentAlphaAnimation.cancel();
+        }
+    }
+
+    /**
+     * @return the duration needed to animate an alpha value, scaled to the distance left.
+     */
+    private long getRemainingDuration(float from, float to) {
+        return (long) (mDuration * Math.min(1f, Math.abs(to - from)));
+    }
+
+    /**
+     * Animates one property of a view between two values, with a 0 to 1 {@link ValueAnimator}
+     * which is never re-keyed.
+     */
+    private static final class PropertyAnimation implements ValueAnimator.AnimatorUpdateListener {
+        static final int ALPHA = 0;
+        static final int TRANSLATION_Y = 1;
+
+        private final ValueAnimator mAnimator = ValueAnimator.ofFloat(0f, 1f);
+        private final View mView;
+        private final int mProperty;
+        private float mFrom;
+        private float mTo;
+
+        PropertyAnimation(View view, int property) {
+            mView = view;
+            mProperty = property;
+            mAnimator.addUpdateListener(this);
+        }
+
+        void addListener(Animator.AnimatorListener listener) {
+            mAnimator.addListener(listener);
+        }
+
+        void start(float from, float to, long duration) {
+            mAnimator.cancel();
+            mFrom = from;
+            mTo = to;
+            mAnimator.setDuration(duration);
+            mAnimator.start();
+        }
+
+        void cancel() {
+            mAnimator.cancel();
+        }
+
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            final float value = mFrom + (mTo - mFrom) * animation.getAnimatedFraction();
+            if (mProperty == ALPHA) {
+                mView.setAlpha(value);
+            } else {
+                mView.setTranslationY(value);
+            }
+        }
+    }
+}
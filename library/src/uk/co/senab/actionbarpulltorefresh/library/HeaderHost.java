@@ -0,0 +1,202 @@
+/*
+ * Copyright 2013 Chris Banes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.co.senab.actionbarpulltorefresh.library;
+
+import android.app.Activity;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+import java.util.ArrayList;
+
+/**
+ * Holds a header view, its {@link HeaderTransformer} and the window it is displayed in, on behalf
+ * of one or more {@link PullToRefreshAttacher}s.
+ * <p/>
+ * When the header is shared, there is one host per header layout in an Activity, stored as a tag
+ * on the Activity's decor view. Each attacher acquires the host when it is created and releases
+ * it when destroyed, and the window is removed once the last attacher has released it. This keeps
+ * the number of header windows constant, however many PullToRefreshLayouts a screen has.
+ * <p/>
+ * The window is added and removed through the attacher hooks, such as
+ * {@link PullToRefreshAttacher#addHeaderViewToActivity(View)}, of the attacher which added it.
+ * If that attacher is released first, the window is moved to one of the remaining attachers.
+ * <p/>
+ * If the header view came from the {@link HeaderViewPool}, it is returned to the pool once the
+ * last attacher has released the host.
+ */
+final class HeaderHost {
+
+    private final View mHeaderView;
+    private final HeaderTransformer mHeaderTransformer;
+    private final int mHeaderLayout;
+    private final boolean mIsShared;
+
+    /**
+     * The theme the header view was pooled with, or 0 if it should not be returned to the pool.
+     */
+    private final int mPoolThemeResId;
+
+    private final ArrayList<PullToRefreshAttacher> mAttachers
+            = new ArrayList<PullToRefreshAttacher>();
+
+    /**
+     * The attacher whose hooks were used to add the header view to the window, or null if it
+     * hasn't been added yet.
+     */
+    private PullToRefreshAttacher mWindowAttacher;
+
+    /**
+     * The attacher which last showed the header. While it is refreshing, no other attacher can
+     * take the header from it.
+     */
+    private PullToRefreshAttacher mOwner;
+
+    HeaderHost(View headerView, HeaderTransformer headerTransformer, int headerLayout,
+            boolean shared, int poolThemeResId) {
+        mHeaderView = headerView;
+        mHeaderTransformer = headerTransformer;
+        mHeaderLayout = headerLayout;
+        mIsShared = shared;
+        mPoolThemeResId = poolThemeResId;
+    }
+
+    /**
+     * @return the shared host for the given header layout in the Activity, or null if there
+     *         isn't one yet.
+     */
+    static HeaderHost getSharedHost(Activity activity, int headerLayout) {
+        final SparseArray<HeaderHost> hosts = getSharedHosts(activity, false);
+        return hosts != null ? hosts.get(headerLayout) : null;
+    }
+
+    View getHeaderView() {
+        return mHeaderView;
+    }
+
+    HeaderTransformer getHeaderTransformer() {
+        return mHeaderTransformer;
+    }
+
+    /**
+     * @return true if this host can be used by the given attacher.
+     */
+    boolean isCompatibleWith(PullToRefreshAttacher attacher) {
+        // Subclasses may add the header to the window differently
+        return mAttachers.isEmpty() || mAttachers.get(0).getClass() == attacher.getClass();
+    }
+
+    void acquire(PullToRefreshAttacher attacher) {
+        if (mAttachers.isEmpty() && mIsShared) {
+            getSharedHosts(attacher.getAttachedActivity(), true).put(mHeaderLayout, this);
+        }
+        mAttachers.add(attacher);
+    }
+
+    void release(PullToRefreshAttacher attacher) {
+        if (!mAttachers.remove(attacher)) return;
+
+        if (mOwner == attacher) {
+            mOwner = null;
+        }
+
+        if (mWindowAttacher == attacher) {
+            attacher.removeHeaderViewFromActivity(mHeaderView);
+            mWindowAttacher = null;
+
+            if (!mAttachers.isEmpty()) {
+                // Move the window to one of the remaining attachers. If its decor view doesn't
+                // have a window token yet, it will add the window itself once it does
+                final PullToRefreshAttacher next = mAttachers.get(0);
+                if (next.getAttachedActivity().getWindow().getDecorView()
+                        .getWindowToken() != null) {
+                    attachToWindow(next);
+                }
+            }
+        }
+
+        if (mAttachers.isEmpty() && mIsShared) {
+            final SparseArray<HeaderHost> hosts = getSharedHosts(
+                    attacher.getAttachedActivity(), false);
+            if (hosts != null && hosts.get(mHeaderLayout) == this) {
+                hosts.remove(mHeaderLayout);
+            }
+        }
+
+        if (mAttachers.isEmpty() && mPoolThemeResId != 0) {
+            HeaderViewPool.recycle(attacher.getAttachedActivity(), mPoolThemeResId, mHeaderLayout,
+                    mHeaderView);
+        }
+    }
+
+    /**
+     * Add the header view to the Activity's window using the given attacher's hooks, if it
+     * hasn't been added already.
+     */
+    void attachToWindow(PullToRefreshAttacher attacher) {
+        if (mWindowAttacher != null) return;
+
+        // The view may still be within a wrapper created by the previous window attacher
+        final ViewParent parent = mHeaderView.getParent();
+        if (parent instanceof ViewGroup) {
+            ((ViewGroup) parent).removeView(mHeaderView);
+        }
+
+        mWindowAttacher = attacher;
+        attacher.addHeaderViewToActivity(mHeaderView);
+    }
+
+    void updateHeaderViewPosition(PullToRefreshAttacher attacher) {
+        (mWindowAttacher != null ? mWindowAttacher : attacher)
+                .updateHeaderViewPosition(mHeaderView);
+    }
+
+    /**
+     * Make the given attacher the one which is currently using the header, unless another
+     * attacher is refreshing with it.
+     *
+     * @return true if the given attacher now owns the header.
+     */
+    boolean setOwner(PullToRefreshAttacher attacher) {
+        if (mOwner != null && mOwner != attacher && mOwner.isRefreshing()) {
+            return false;
+        }
+        mOwner = attacher;
+        return true;
+    }
+
+    /**
+     * @return true if the given attacher may update or hide the header, i.e. no other attacher
+     *         has shown it since.
+     */
+    boolean isOwnedBy(PullToRefreshAttacher attacher) {
+        return mOwner == null || mOwner == attacher;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SparseArray<HeaderHost> getSharedHosts(Activity activity, boolean create) {
+        final View decorView = activity.getWindow().getDecorView();
+        SparseArray<HeaderHost> hosts = (SparseArray<HeaderHost>) decorView
+                .getTag(R.id.ptr_shared_header_hosts);
+        if (hosts == null && create) {
+            hosts = new SparseArray<HeaderHost>();
+            decorView.setTag(R.id.ptr_shared_header_hosts, hosts);
+        }
+        return hosts;
+    }
+}
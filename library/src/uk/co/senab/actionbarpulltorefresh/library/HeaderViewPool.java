@@ -0,0 +1,232 @@
+/*
+ * Copyright 2013 Chris Banes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.co.senab.actionbarpulltorefresh.library;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.pm.PackageManager;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.util.SparseArray;
+import android.util.TypedValue;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * A process-wide pool of detached header views, keyed by theme and header layout, so that
+ * Activities with the same theme can reuse the header of a destroyed Activity rather than
+ * inflating and styling a new one.
+ * <p/>
+ * A view which outlives its Activity must not reference it, so pooled headers are inflated with
+ * a context created from the application context and the Activity's theme, rather than with
+ * the Activity. Each view is tagged with the configuration it was inflated under, and is only
+ * reused by an Activity with the same configuration. The pool is bounded, and is cleared when
+ * the system asks the process to trim its memory. It relies on {@link ComponentCallbacks2}, so
+ * is only available on ICS and above.
+ * All methods must be called from the UI thread.
+ */
+final class HeaderViewPool {
+
+    /**
+     * The maximum number of views held by the pool, across all keys.
+     */
+    private static final int MAX_POOL_SIZE = 4;
+
+    private static final HashMap<Long, ArrayList<View>> POOL
+            = new HashMap<Long, ArrayList<View>>();
+    private static int sPoolSize;
+
+    /**
+     * Cached theme resource ids for each Activity class, as looking them up goes through the
+     * package manager.
+     */
+    private static final HashMap<String, Integer> ACTIVITY_THEMES
+            = new HashMap<String, Integer>();
+
+    /**
+     * The inflater contexts for each theme. Sharing them means the views in the pool only
+     * reference one context per theme.
+     */
+    private static final SparseArray<Context> THEMED_CONTEXTS = new SparseArray<Context>();
+
+    private static boolean sTrimCallbacksRegistered;
+
+    private HeaderViewPool() {
+    }
+
+    static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH;
+    }
+
+    /**
+     * @return the theme resource id of the Activity, as declared in the manifest.
+     */
+    static int getThemeResId(Activity activity) {
+        final String className = activity.getClass().getName();
+        Integer theme = ACTIVITY_THEMES.get(className);
+        if (theme == null) {
+            try {
+                final ActivityInfo info = activity.getPackageManager()
+                        .getActivityInfo(activity.getComponentName(), 0);
+                theme = info.getThemeResource();
+            } catch (PackageManager.NameNotFoundException e) {
+                theme = activity.getApplicationInfo().theme;
+            }
+            ACTIVITY_THEMES.put(className, theme);
+        }
+        return theme;
+    }
+
+    /**
+     * @return the context which pooled headers with the given theme should be inflated with.
+     */
+    @TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+    private static Context getContextForInflater(Activity activity, int themeResId) {
+        Context context = THEMED_CONTEXTS.get(themeResId);
+        if (context == null) {
+            context = new ContextThemeWrapper(activity.getApplicationContext(), themeResId);
+
+            // Match the Action Bar's themed context, which the header is normally inflated with
+            final TypedValue outValue = new TypedValue();
+            context.getTheme().resolveAttribute(android.R.attr.actionBarWidgetTheme, outValue,
+                    true);
+            if (outValue.resourceId != 0) {
+                context.getTheme().applyStyle(outValue.resourceId, true);
+            }
+            THEMED_CONTEXTS.put(themeResId, context);
+        }
+        return context;
+    }
+
+    /**
+     * Inflate a header view which can later be returned to the pool.
+     */
+    static View inflate(Activity activity, int themeResId, int headerLayout, ViewGroup root) {
+        final View view = LayoutInflater.from(getContextForInflater(activity, themeResId))
+                .inflate(headerLayout, root, false);
+        if (view != null) {
+            view.setTag(R.id.ptr_pooled_header_configuration,
+                    new Configuration(activity.getResources().getConfiguration()));
+        }
+        return view;
+    }
+
+    /**
+     * @return a pooled header view for the theme and layout which was inflated under the
+     *         Activity's configuration, or null if there isn't one.
+     */
+    static View obtain(Activity activity, int themeResId, int headerLayout) {
+        final ArrayList<View> views = POOL.get(getKey(themeResId, headerLayout));
+        if (views == null) {
+            return null;
+        }
+
+        final Configuration configuration = activity.getResources().getConfiguration();
+        while (!views.isEmpty()) {
+            final View view = views.remove(views.size() - 1);
+            sPoolSize--;
+
+            // Views from before a configuration change may be recycled after it, so are dropped
+            final Configuration viewConfiguration = (Configuration) view
+                    .getTag(R.id.ptr_pooled_header_configuration);
+            if (viewConfiguration != null && viewConfiguration.diff(configuration) == 0) {
+                return view;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return a header view to the pool. The view must have been created by
+     * {@link #inflate(Activity, int, int, ViewGroup)} and removed from its window. If the pool is
+     * full, the view is dropped.
+     */
+    static void recycle(Activity activity, int themeResId, int headerLayout, View view) {
+        if (sPoolSize >= MAX_POOL_SIZE || view.getParent() != null) {
+            return;
+        }
+        registerTrimCallbacks(activity);
+
+        // Drop the window layout params, which reference the old Activity's window token
+        view.setTag(null);
+        final ViewGroup.LayoutParams lp = view.getLayoutParams();
+        if (lp != null) {
+            view.setLayoutParams(new ViewGroup.LayoutParams(lp));
+        }
+
+        final Long key = getKey(themeResId, headerLayout);
+        ArrayList<View> views = POOL.get(key);
+        if (views == null) {
+            views = new ArrayList<View>(1);
+            POOL.put(key, views);
+        }
+        views.add(view);
+        sPoolSize++;
+    }
+
+    static void clear() {
+        POOL.clear();
+        THEMED_CONTEXTS.clear();
+        sPoolSize = 0;
+    }
+
+    private static Long getKey(int themeResId, int headerLayout) {
+        return ((long) themeResId << 32) | (headerLayout & 0xffffffffL);
+    }
+
+    @TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+    private static void registerTrimCallbacks(Activity activity) {
+        if (!sTrimCallbacksRegistered) {
+            activity.getApplicationContext().registerComponentCallbacks(new TrimCallbacks());
+            sTrimCallbacksRegistered = true;
+        }
+    }
+
+    /**
+     * Only loaded on ICS and above, where {@link ComponentCallbacks2} exists.
+     */
+    @TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+    private static class TrimCallbacks implements ComponentCallbacks2 {
+        @Override
+        public void onTrimMemory(int level) {
+            // Hiding the UI alone isn't memory pressure, and the pool is most useful then
+            if (level != TRIM_MEMORY_UI_HIDDEN) {
+                clear();
+            }
+        }
+
+        @Override
+        public void onLowMemory() {
+            clear();
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+            // Free the views inflated for the old configuration. The old Activity may recycle
+            // its header after this, but obtain() won't hand it out under the new configuration
+            clear();
+        }
+    }
+}
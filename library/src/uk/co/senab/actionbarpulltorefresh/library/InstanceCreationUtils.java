@@ -18,16 +18,11 @@ package uk.co.senab.actionbarpulltorefresh.library;
 
 import android.content.Context;
 import android.util.Log;
-import android.view.View;
-import uk.co.senab.actionbarpulltorefresh.library.viewdelegates.AbsListViewDelegate;
-import uk.co.senab.actionbarpulltorefresh.library.viewdelegates.ScrollYDelegate;
 import uk.co.senab.actionbarpulltorefresh.library.viewdelegates.ViewDelegate;
-import uk.co.senab.actionbarpulltorefresh.library.viewdelegates.WebViewDelegate;
 
 import java.lang.reflect.Constructor;
 import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.HashSet;
 
 class InstanceCreationUtils {
 
@@ -36,36 +31,40 @@ class InstanceCreationUtils {
     private static final Class<?>[] VIEW_DELEGATE_CONSTRUCTOR_SIGNATURE = new Class[]{};
     private static final Class<?>[] TRANSFORMER_CONSTRUCTOR_SIGNATURE = new Class[]{};
 
-    private static final HashMap<Class, Class> BUILT_IN_DELEGATES;
+    /**
+     * Cache of view delegate class names to their constructors, so that the class is only loaded
+     * and looked up once, however many views declare it. Only accessed from the UI thread.
+     */
+    private static final HashMap<String, Constructor<?>> VIEW_DELEGATE_CONSTRUCTORS
+            = new HashMap<String, Constructor<?>>();
 
-    static {
-        BUILT_IN_DELEGATES = new HashMap<Class, Class>();
-        addBuiltinDelegates(AbsListViewDelegate.SUPPORTED_VIEW_CLASSES, AbsListViewDelegate.class);
-        addBuiltinDelegates(ScrollYDelegate.SUPPORTED_VIEW_CLASSES, ScrollYDelegate.class);
-        addBuiltinDelegates(WebViewDelegate.SUPPORTED_VIEW_CLASSES, WebViewDelegate.class);
-    }
+    /**
+     * Class names which could not be used as a view delegate, so that they are only reported once.
+     */
+    private static final HashSet<String> INVALID_VIEW_DELEGATE_CLASSES = new HashSet<String>();
 
-    private static void addBuiltinDelegates(Class[] supportedViews, Class<?> delegateClass) {
-        for (int i = 0, z = supportedViews.length; i < z; i++) {
-            BUILT_IN_DELEGATES.put(supportedViews[i], delegateClass);
-        }
-    }
-
-    static ViewDelegate getBuiltInViewDelegate(final View view) {
-        final Set<Map.Entry<Class, Class>> entries = BUILT_IN_DELEGATES.entrySet();
-        for (final Map.Entry<Class, Class> entry : entries) {
-            if (entry.getKey().isInstance(view)) {
-                return InstanceCreationUtils.newInstance(view.getContext(),
-                        entry.getValue(), VIEW_DELEGATE_CONSTRUCTOR_SIGNATURE);
+    static <T> T instantiateViewDelegate(Context context, String className) {
+        Constructor<?> constructor = VIEW_DELEGATE_CONSTRUCTORS.get(className);
+        if (constructor == null) {
+            if (INVALID_VIEW_DELEGATE_CLASSES.contains(className)) {
+                return null;
+            }
+            try {
+                Class<?> clazz = context.getClassLoader().loadClass(className);
+                if (!ViewDelegate.class.isAssignableFrom(clazz)) {
+                    throw new ClassCastException(className + " does not implement ViewDelegate");
+                }
+                constructor = clazz.getConstructor(VIEW_DELEGATE_CONSTRUCTOR_SIGNATURE);
+                VIEW_DELEGATE_CONSTRUCTORS.put(className, constructor);
+            } catch (Exception e) {
+                Log.w(LOG_TAG, "Cannot instantiate class: " + className, e);
+                INVALID_VIEW_DELEGATE_CLASSES.add(className);
+                return null;
             }
         }
-        return null;
-    }
 
-    static <T> T instantiateViewDelegate(Context context, String className) {
         try {
-            Class<?> clazz = context.getClassLoader().loadClass(className);
-            return newInstance(context, clazz, VIEW_DELEGATE_CONSTRUCTOR_SIGNATURE);
+            return (T) constructor.newInstance();
         } catch (Exception e) {
             Log.w(LOG_TAG, "Cannot instantiate class: " + className, e);
         }
@@ -28,6 +28,15 @@ public final class Options {
     private static final boolean DEFAULT_REFRESH_ON_DOWN = false;
     private static final int DEFAULT_REFRESH_MINIMIZED_DELAY = 1 * 1000;
     private static final boolean DEFAULT_REFRESH_MINIMIZE = true;
+    private static final boolean DEFAULT_USE_HISTORICAL_MOTION_EVENTS = false;
+    private static final boolean DEFAULT_REFRESH_ON_FLING = false;
+    private static final int DEFAULT_REFRESH_FLING_VELOCITY = 1000;
+    private static final boolean DEFAULT_NESTED_SCROLLING = false;
+    private static final boolean DEFAULT_SCROLL_TO_PULL_HANDOFF = false;
+    private static final boolean DEFAULT_SHARED_HEADER = false;
+    private static final boolean DEFAULT_LAZY_HEADER = false;
+    private static final boolean DEFAULT_PRE_INFLATE_HEADER = false;
+    private static final boolean DEFAULT_POOLED_HEADER = false;
 
     public static Builder create() {
         return new Builder();
@@ -54,6 +63,27 @@ public final class Options {
      */
     boolean refreshMinimize = DEFAULT_REFRESH_MINIMIZE;
 
+    boolean useHistoricalMotionEvents = DEFAULT_USE_HISTORICAL_MOTION_EVENTS;
+
+    /**
+     * Whether a quick flick in the pull direction should also initiate a refresh, when its
+     * velocity (in dp per second) is at least {@link #refreshFlingVelocity}.
+     */
+    boolean refreshOnFling = DEFAULT_REFRESH_ON_FLING;
+    int refreshFlingVelocity = DEFAULT_REFRESH_FLING_VELOCITY;
+
+    boolean nestedScrolling = DEFAULT_NESTED_SCROLLING;
+
+    boolean scrollToPullHandoff = DEFAULT_SCROLL_TO_PULL_HANDOFF;
+
+    boolean sharedHeader = DEFAULT_SHARED_HEADER;
+
+    boolean lazyHeader = DEFAULT_LAZY_HEADER;
+
+    boolean preInflateHeader = DEFAULT_PRE_INFLATE_HEADER;
+
+    boolean pooledHeader = DEFAULT_POOLED_HEADER;
+
     public static class Builder {
         final Options mOptions = new Options();
 
@@ -133,6 +163,101 @@ public final class Options {
             return this;
         }
 
+        /**
+         * Whether the batched historical samples of each move event should be used when tracking
+         * the pull, rather than just the latest sample. This gives a more accurate pull distance
+         * when the user pulls quickly and releases.
+         */
+        public Builder historicalMotionEvents(boolean enabled) {
+            mOptions.useHistoricalMotionEvents = enabled;
+            return this;
+        }
+
+        /**
+         * Enable initiating a refresh when the user flicks quickly in the pull direction, even if
+         * they have not pulled as far as {@link #scrollDistance(float)} requires.
+         */
+        public Builder refreshOnFling() {
+            return refreshOnFling(DEFAULT_REFRESH_FLING_VELOCITY);
+        }
+
+        /**
+         * Enable initiating a refresh on a quick flick and set the velocity, in dp per second,
+         * which the flick needs to reach.
+         */
+        public Builder refreshOnFling(int velocity) {
+            mOptions.refreshFlingVelocity = velocity;
+            mOptions.refreshOnFling = true;
+            return this;
+        }
+
+        /**
+         * Whether pulls should be detected from the refreshable views' unconsumed nested scroll
+         * deltas, rather than by intercepting touch events. This is only used on Android L and
+         * above, and the refreshable views need to have nested scrolling enabled. On earlier
+         * versions touch events are always intercepted.
+         */
+        public Builder nestedScrolling(boolean enabled) {
+            mOptions.nestedScrolling = enabled;
+            return this;
+        }
+
+        /**
+         * Whether a gesture which starts by scrolling a refreshable view should turn into a pull
+         * as soon as the view reaches its edge, without the user having to lift their finger and
+         * pull again.
+         */
+        public Builder scrollToPullHandoff(boolean enabled) {
+            mOptions.scrollToPullHandoff = enabled;
+            return this;
+        }
+
+        /**
+         * Whether the header should be shared with the other PullToRefreshLayouts in the
+         * Activity which use the same header layout, so that there is only ever one header window.
+         * Ignored if a {@link HeaderTransformer} instance has been set with
+         * {@link #headerTransformer(HeaderTransformer)}.
+         */
+        public Builder sharedHeader(boolean shared) {
+            mOptions.sharedHeader = shared;
+            return this;
+        }
+
+        /**
+         * Whether the header should only be inflated and added to the window when it is first
+         * needed, which is when the user starts a gesture on a view which is ready to be pulled,
+         * or a refresh is started. Screens which are never pulled then don't pay for the header.
+         */
+        public Builder lazyHeader(boolean lazy) {
+            mOptions.lazyHeader = lazy;
+            return this;
+        }
+
+        /**
+         * Whether the header should be inflated, styled and added to the window when the main
+         * thread is next idle, rather than during setup. If the header is needed before then, it
+         * is created at that point instead, and only once.
+         */
+        public Builder preInflateHeader(boolean preInflate) {
+            mOptions.preInflateHeader = preInflate;
+            return this;
+        }
+
+        /**
+         * Whether the header view should be returned to a process-wide pool when it is no longer
+         * used, and taken from the pool when an Activity with the same theme needs the same header
+         * layout, instead of being inflated again. The pool is cleared when the system asks the
+         * app to trim its memory.
+         * <p/>
+         * Pooled headers are inflated using the Activity's theme from the manifest. This is only
+         * supported on ICS and above, and is ignored if an {@link EnvironmentDelegate} has been
+         * set.
+         */
+        public Builder pooledHeader(boolean pooled) {
+            mOptions.pooledHeader = pooled;
+            return this;
+        }
+
         /**
          * @return the built {@link Options} instance.
          */
@@ -23,13 +23,18 @@ import android.content.res.Configuration;
 import android.graphics.PixelFormat;
 import android.graphics.Rect;
 import android.os.Build;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.util.Log;
 import android.view.*;
+import uk.co.senab.actionbarpulltorefresh.gesture.PullGestureEngine;
 import uk.co.senab.actionbarpulltorefresh.library.listeners.HeaderViewListener;
 import uk.co.senab.actionbarpulltorefresh.library.listeners.OnRefreshBottomListener;
 import uk.co.senab.actionbarpulltorefresh.library.listeners.OnRefreshListener;
+import uk.co.senab.actionbarpulltorefresh.library.sdk.Compat;
 import uk.co.senab.actionbarpulltorefresh.library.viewdelegates.ViewDelegate;
 
+import java.util.Map;
 import java.util.WeakHashMap;
 
 public class PullToRefreshAttacher {
@@ -39,9 +44,6 @@ public class PullToRefreshAttacher {
 
     /* Member Variables */
 
-    private boolean isOnBottom;
-    private boolean isOnTop;
-
     private EnvironmentDelegate mEnvironmentDelegate;
     private HeaderTransformer headerTransformer;
 
@@ -50,24 +52,55 @@ public class PullToRefreshAttacher {
 
     private Activity activity;
     private View headerView;
+    private HeaderHost headerHost;
+
+    /**
+     * The options to create the header with, when it is created lazily. Null once it has been
+     * created.
+     */
+    private Options lazyHeaderOptions;
     private HeaderViewListener headerViewListener;
 
-    private final int mTouchSlop;
+    private final PullGestureEngine gestureEngine;
     private final float refreshScrollDistance;
 
-    private float initialMotionY, lastMotionY, pullBeginY;
-    private float initialMotionX;
-    private boolean isBeingDragged, isRefreshing, handlingTouchEventFromDown;
+    private boolean isRefreshing, handlingTouchEventFromDown;
     private View viewBeingDragged;
 
+    /**
+     * Id within {@link #refreshableViewIndex} of the view touched by the current gesture, used to
+     * re-check whether it has reached an edge during the gesture. -1 if there is none.
+     */
+    private int handoffId = -1;
+    private float handoffLastY;
+
+    private VelocityTracker velocityTracker;
+    private float nestedPullDistance;
+
+    private float pendingPullProgress;
+    private boolean isPullProgressPosted;
+
     private final WeakHashMap<View, ViewDelegate> refreshableViews;
+    private final RefreshableViewIndex refreshableViewIndex = new RefreshableViewIndex();
+
+    /**
+     * True if refreshable views have been added or changed since {@link #refreshableViewIndex}
+     * was last rebuilt. The index is rebuilt on the next layout pass or ACTION_DOWN, so that
+     * adding many views only rebuilds it once.
+     */
+    private boolean refreshableViewIndexDirty;
+    private final ViewDelegateRegistry viewDelegateRegistry = new ViewDelegateRegistry();
 
     private final boolean refreshOnUp;
+    private final boolean useHistoricalMotionEvents;
+    private final boolean refreshOnFling;
+    private final float refreshFlingVelocity;
+    private final boolean useNestedScrolling;
+    private final boolean scrollToPullHandoff;
     private final int refreshMinimizeDelay;
     private final boolean refreshMinimize;
     private boolean isDestroyed = false;
 
-    private final int[] mViewLocationResult = new int[2];
     private Rect mRect = new Rect();
 
     protected PullToRefreshAttacher(Activity activity, Options options) {
@@ -85,6 +118,13 @@ public class PullToRefreshAttacher {
         // Copy necessary values from options
         refreshScrollDistance = options.refreshScrollDistance;
         refreshOnUp = options.refreshOnUp;
+        useHistoricalMotionEvents = options.useHistoricalMotionEvents;
+        refreshOnFling = options.refreshOnFling;
+        refreshFlingVelocity = options.refreshFlingVelocity
+                * activity.getResources().getDisplayMetrics().density;
+        // Nested scrolling was added in Android L (API 21)
+        useNestedScrolling = options.nestedScrolling && Build.VERSION.SDK_INT >= 21;
+        scrollToPullHandoff = options.scrollToPullHandoff;
         refreshMinimizeDelay = options.refreshMinimizeDelay;
         refreshMinimize = options.refreshMinimize;
 
@@ -93,37 +133,45 @@ public class PullToRefreshAttacher {
                 ? options.environmentDelegate
                 : createDefaultEnvironmentDelegate();
 
-        // Header Transformer
-        headerTransformer = options.headerTransformer != null
-                ? options.headerTransformer
-                : createDefaultHeaderTransformer();
-
-        // Get touch slop for use later
-        mTouchSlop = ViewConfiguration.get(activity).getScaledTouchSlop();
+        // Create the gesture engine, using the touch slop
+        gestureEngine = new PullGestureEngine(
+                ViewConfiguration.get(activity).getScaledTouchSlop(), gestureCallback);
 
         // Get Window Decor View
         final ViewGroup decorView = (ViewGroup) activity.getWindow().getDecorView();
 
-        // Create Header view and then add to Decor View
-        headerView = LayoutInflater.from(
-                mEnvironmentDelegate.getContextForInflater(activity)).inflate(
-                options.headerLayout, decorView, false);
-        if (headerView == null) {
-            throw new IllegalArgumentException("Must supply valid layout id for header.");
+        // Header View and Transformer. If the header is lazy, they are created when first needed.
+        // If it is pre-inflated, they are created when the main thread is next idle, or when first
+        // needed if that is sooner
+        if (options.lazyHeader || options.preInflateHeader) {
+            lazyHeaderOptions = options;
+            if (options.preInflateHeader) {
+                Looper.myQueue().addIdleHandler(headerIdleHandler);
+            }
+        } else {
+            acquireHeaderHost(options, decorView);
         }
-        // Make Header View invisible so it still gets a layout pass
-        headerView.setVisibility(View.INVISIBLE);
-
-        // Notify transformer
-        headerTransformer.onViewCreated(activity, headerView);
 
         // Now HeaderView to Activity
         decorView.post(new Runnable() {
             @Override
             public void run() {
+                if (isDestroyed) return;
+
                 if (decorView.getWindowToken() != null) {
-                    // The Decor View has a Window Token, so we can add the HeaderView!
-                    addHeaderViewToActivity(headerView);
+                    // The Decor View has a Window Token, so we can add the HeaderView! If the
+                    // header is shared, this does nothing if it has already been added
+                    if (headerHost != null) {
+                        headerHost.attachToWindow(PullToRefreshAttacher.this);
+                    }
+
+                    // Any layout pass or scroll may move the refreshable views, so listen for them
+                    final ViewTreeObserver vto = decorView.getViewTreeObserver();
+                    vto.addOnGlobalLayoutListener(viewTreeListener);
+                    vto.addOnScrollChangedListener(viewTreeListener);
+
+                    // The views may have been laid out before we started listening
+                    onRefreshableViewsLayoutChanged();
                 } else {
                     // The Decor View doesn't have a Window Token yet, post ourselves again...
                     decorView.post(this);
@@ -132,6 +180,83 @@ public class PullToRefreshAttacher {
         });
     }
 
+    private void acquireHeaderHost(Options options, ViewGroup decorView) {
+        // The header may be shared with other attachers in the Activity. A custom transformer
+        // instance can only be used by one header, so is never shared
+        final boolean shareHeader = options.sharedHeader && options.headerTransformer == null;
+        if (shareHeader) {
+            headerHost = HeaderHost.getSharedHost(activity, options.headerLayout);
+            if (headerHost != null && !headerHost.isCompatibleWith(this)) {
+                headerHost = null;
+            }
+        }
+        if (headerHost == null) {
+            headerHost = createHeaderHost(options, decorView,
+                    shareHeader && HeaderHost.getSharedHost(activity, options.headerLayout) == null);
+        }
+        headerHost.acquire(this);
+        headerView = headerHost.getHeaderView();
+        headerTransformer = headerHost.getHeaderTransformer();
+    }
+
+    /**
+     * Create the header now if it is being created lazily. Called when the header is about to
+     * be needed: when a gesture starts on a view which is ready to be pulled, or when a refresh
+     * is started.
+     */
+    private void ensureHeader() {
+        if (lazyHeaderOptions == null) return;
+
+        final Options options = lazyHeaderOptions;
+        lazyHeaderOptions = null;
+
+        final ViewGroup decorView = (ViewGroup) activity.getWindow().getDecorView();
+        acquireHeaderHost(options, decorView);
+
+        // If the Decor View doesn't have a Window Token yet, our posted runnable will add the
+        // HeaderView once it does
+        if (decorView.getWindowToken() != null) {
+            headerHost.attachToWindow(this);
+        }
+    }
+
+    private HeaderHost createHeaderHost(Options options, ViewGroup decorView, boolean shared) {
+        // Header Transformer
+        final HeaderTransformer transformer = options.headerTransformer != null
+                ? options.headerTransformer
+                : createDefaultHeaderTransformer();
+
+        // Pooled headers must not reference the Activity, so they can only be inflated when we
+        // know what the environment's context is
+        final int poolThemeResId = options.pooledHeader && HeaderViewPool.isSupported()
+                && mEnvironmentDelegate instanceof DefaultEnvironmentDelegate
+                ? HeaderViewPool.getThemeResId(activity) : 0;
+
+        // Create Header view, or reuse one from the pool
+        View view = null;
+        if (poolThemeResId != 0) {
+            view = HeaderViewPool.obtain(activity, poolThemeResId, options.headerLayout);
+            if (view == null) {
+                view = HeaderViewPool.inflate(activity, poolThemeResId, options.headerLayout,
+                        decorView);
+            }
+        } else {
+            view = LayoutInflater.from(
+                    mEnvironmentDelegate.getContextForInflater(activity)).inflate(
+                    options.headerLayout, decorView, false);
+        }
+        if (view == null) {
+            throw new IllegalArgumentException("Must supply valid layout id for header.");
+        }
+        // Make Header View invisible so it still gets a layout pass
+        view.setVisibility(View.INVISIBLE);
+
+        // Notify transformer. This also restyles a pooled view for this Activity
+        transformer.onViewCreated(activity, view);
+
+        return new HeaderHost(view, transformer, options.headerLayout, shared, poolThemeResId);
+    }
+
     /**
      * Add a view which will be used to initiate refresh requests.
      *
@@ -146,21 +271,48 @@ public class PullToRefreshAttacher {
             return;
         }
 
-        // ViewDelegate
-        if (viewDelegate == null) {
-            viewDelegate = InstanceCreationUtils.getBuiltInViewDelegate(view);
+        // ViewDelegate. Custom delegates registered for the view's class take precedence
+        final ViewDelegate customDelegate = viewDelegateRegistry.getCustomViewDelegate(view);
+        if (customDelegate != null) {
+            viewDelegate = customDelegate;
+        } else if (viewDelegate == null) {
+            viewDelegate = viewDelegateRegistry.getBuiltInViewDelegate(view);
+        } else {
+            viewDelegateRegistry.attach(viewDelegate);
         }
 
         // View to detect refreshes for
         refreshableViews.put(view, viewDelegate);
+        onRefreshableViewsChanged();
     }
 
+    /**
+     * Use the given delegate for any refreshable views which are an instance of
+     * {@code viewClass}, including views added later.
+     */
     void useViewDelegate(Class<?> viewClass, ViewDelegate delegate) {
-        for (View view : refreshableViews.keySet()) {
-            if (viewClass.isInstance(view)) {
-                refreshableViews.put(view, delegate);
+        viewDelegateRegistry.register(viewClass, delegate);
+
+        // Update any views which have already been added
+        for (Map.Entry<View, ViewDelegate> entry : refreshableViews.entrySet()) {
+            if (viewClass.isInstance(entry.getKey())) {
+                entry.setValue(viewDelegateRegistry.getCustomViewDelegate(entry.getKey()));
             }
         }
+        onRefreshableViewsChanged();
+    }
+
+    /**
+     * Use the given delegate for {@code view}, whether it has already been added as a
+     * refreshable view or is added later.
+     */
+    void useViewDelegate(View view, ViewDelegate delegate) {
+        viewDelegateRegistry.register(view, delegate);
+
+        if (refreshableViews.containsKey(view)) {
+            refreshableViews.put(view, delegate);
+            onRefreshableViewsChanged();
+        }
     }
 
     /**
@@ -168,6 +320,28 @@ public class PullToRefreshAttacher {
      */
     void clearRefreshableViews() {
         refreshableViews.clear();
+        refreshableViewIndex.clear();
+        refreshableViewIndexDirty = false;
+        handoffId = -1;
+    }
+
+    private void onRefreshableViewsChanged() {
+        // The ids in the index will change, so forget the view of the current handoff
+        handoffId = -1;
+        refreshableViewIndexDirty = true;
+    }
+
+    /**
+     * Called when the layout or scroll position of the refreshable views may have changed,
+     * meaning that their cached screen positions need to be re-computed. This is done here,
+     * rather than on the next ACTION_DOWN, so that touch handling only does index arithmetic.
+     */
+    void onRefreshableViewsLayoutChanged() {
+        if (refreshableViewIndexDirty) {
+            refreshableViewIndexDirty = false;
+            refreshableViewIndex.setViews(refreshableViews);
+        }
+        refreshableViewIndex.updateBounds();
     }
 
     /**
@@ -177,7 +351,9 @@ public class PullToRefreshAttacher {
      * @param newConfig The new configuration
      */
     public void onConfigurationChanged(Configuration newConfig) {
-        headerTransformer.onConfigurationChanged(activity, newConfig);
+        if (headerTransformer != null) {
+            headerTransformer.onConfigurationChanged(activity, newConfig);
+        }
     }
 
     /**
@@ -221,14 +397,29 @@ public class PullToRefreshAttacher {
     void destroy() {
         if (isDestroyed) return; // We've already been destroyed
 
-        // Remove the Header View from the Activity
-        removeHeaderViewFromActivity(headerView);
+        // Stop waiting to pre-inflate the header
+        Looper.myQueue().removeIdleHandler(headerIdleHandler);
+
+        // Release the Header View, which removes it from the Activity if no other attachers are
+        // sharing it
+        if (headerHost != null) {
+            headerHost.release(this);
+        }
+
+        // Stop listening for layout passes and scrolls
+        final ViewTreeObserver vto = activity.getWindow().getDecorView().getViewTreeObserver();
+        if (vto.isAlive()) {
+            Compat.removeGlobalOnLayoutListener(vto, viewTreeListener);
+            vto.removeOnScrollChangedListener(viewTreeListener);
+        }
 
         // Lets clear out all of our internal state
         clearRefreshableViews();
 
         activity = null;
         headerView = null;
+        headerHost = null;
+        lazyHeaderOptions = null;
         headerViewListener = null;
         mEnvironmentDelegate = null;
         headerTransformer = null;
@@ -249,6 +440,9 @@ public class PullToRefreshAttacher {
      *         we are refreshing.
      */
     final View getHeaderView() {
+        if (!isDestroyed) {
+            ensureHeader();
+        }
         return headerView;
     }
 
@@ -256,6 +450,9 @@ public class PullToRefreshAttacher {
      * @return The HeaderTransformer currently used by this Attacher.
      */
     HeaderTransformer getHeaderTransformer() {
+        if (!isDestroyed) {
+            ensureHeader();
+        }
         return headerTransformer;
     }
 
@@ -265,8 +462,9 @@ public class PullToRefreshAttacher {
         }
 
         // If we're not enabled or currently refreshing don't handle any touch
-        // events
-        if (isRefreshing()) {
+        // events. When using nested scrolling, pulls are detected from the nested scroll
+        // callbacks instead
+        if (isRefreshing() || useNestedScrolling) {
             return false;
         }
 
@@ -275,110 +473,128 @@ public class PullToRefreshAttacher {
 
         switch (event.getAction()) {
             case MotionEvent.ACTION_MOVE: {
-                // We're not currently being dragged so check to see if the user has
-                // scrolled enough
-                if (!isBeingDragged && initialMotionY > 0f) {
-                    final float yDiff = y - initialMotionY;
-                    final float xDiff = x - initialMotionX;
-
-                    if (isOnTop) {
-                        if (yDiff > xDiff && yDiff > mTouchSlop) {
-                            isBeingDragged = true;
-                            onPullStarted(y);
-                        } else if (yDiff < -mTouchSlop) {
-                            resetTouch();
-                        }
-                    } else if (isOnBottom) {
-                        float anotherYDiff = Math.abs(yDiff);
-                        if (anotherYDiff > xDiff && yDiff < -mTouchSlop) {
-                            isBeingDragged = true;
-                            onPullStarted(y);
-                        } else if (yDiff > mTouchSlop) {
-                            resetTouch();
-                        }
-                    }
+                // If the touched view wasn't ready to be pulled, check whether it has since been
+                // scrolled to an edge
+                if (isHandoffPending() && y != handoffLastY) {
+                    handoffLastY = y;
+                    checkForPullHandoff(event, x, y);
                 }
+
+                // If we're not currently being dragged, the engine checks to see if the user has
+                // scrolled enough
+                gestureEngine.onInterceptMove(x, y);
                 break;
             }
 
             case MotionEvent.ACTION_DOWN: {
                 // If we're already refreshing, ignore
                 if (canRefresh(true)) {
-                    for (View view : refreshableViews.keySet()) {
-
-                        /*If refresh bottom enabled*/
-                        isOnBottom = onRefreshBottomListener != null && isViewBeingDraggedDown(view, event);
-                        /*If refresh top enabled*/
-                        isOnTop = onRefreshListener != null && isViewBeingDragged(view, event);
-
-                        if (isOnTop || isOnBottom) {
-//                            if (DEBUG) Log.d(LOG_TAG, "isOnTop OR isOnBottom: " + true);
-                            initialMotionX = x;
-                            initialMotionY = y;
-                            viewBeingDragged = view;
+                    // Views added since the last layout pass haven't been indexed yet
+                    if (refreshableViewIndexDirty) {
+                        onRefreshableViewsLayoutChanged();
+                    }
+
+                    final int rawX = (int) event.getRawX(), rawY = (int) event.getRawY();
+                    final RefreshableViewIndex index = refreshableViewIndex;
+                    int edges = PullGestureEngine.EDGE_NONE;
+                    handoffId = -1;
+
+                    // Only the views under the touch event are returned by the index, innermost
+                    // first so that a wrapping container doesn't take a pull from its content
+                    for (int h = 0, z = index.hitTestAll(rawX, rawY); h < z; h++) {
+                        final int i = index.getHit(h);
+                        edges = getViewReadyEdges(i, rawX, rawY);
+                        if (edges != PullGestureEngine.EDGE_NONE) {
+                            viewBeingDragged = index.getView(i);
+                            break;
+                        } else if (handoffId == -1 && scrollToPullHandoff
+                                && index.getDelegate(i) != null) {
+                            handoffId = i;
+                            handoffLastY = y;
                         }
                     }
+                    gestureEngine.onDown(x, y, edges);
                 }
                 break;
             }
 
             case MotionEvent.ACTION_CANCEL:
             case MotionEvent.ACTION_UP: {
+                handoffId = -1;
                 resetTouch();
                 break;
             }
         }
 
-        if (DEBUG) Log.d(LOG_TAG, "onInterceptTouchEvent. Returning " + isBeingDragged);
+        if (DEBUG) Log.d(LOG_TAG, "onInterceptTouchEvent. Returning " + isBeingDragged());
 
-        return isBeingDragged;
+        return isBeingDragged();
     }
 
-    final boolean isViewBeingDragged(View view, MotionEvent event) {
-        if (view.isShown() && refreshableViews.containsKey(view)) {
-            // First we need to set the rect to the view's screen co-ordinates
-            view.getLocationOnScreen(mViewLocationResult);
-            final int viewLeft = mViewLocationResult[0], viewTop = mViewLocationResult[1];
-            mRect.set(viewLeft, viewTop, viewLeft + view.getWidth(), viewTop + view.getHeight());
-
-//            if (DEBUG) Log.d(LOG_TAG, "isViewBeingDragged. View Rect: " + mRect.toString());
-
-            final int rawX = (int) event.getRawX(), rawY = (int) event.getRawY();
-            if (mRect.contains(rawX, rawY)) {
-                // The Touch Event is within the View's display Rect
-                ViewDelegate delegate = refreshableViews.get(view);
-                if (delegate != null) {
-                    // Now call the delegate, converting the X/Y into the View's co-ordinate system
-                    return delegate.isReadyForPull(view, rawX - mRect.left, rawY - mRect.top);
-                }
+    /**
+     * Check whether the view at {@code index} is ready to be pulled from its top or bottom edge.
+     * Both checks share the cached display rect of the view.
+     *
+     * @param id Id of the view within {@link #refreshableViewIndex}. The touch event is known to
+     *           be within the view's display rect.
+     * @return the edges the view can be pulled from, as {@link PullGestureEngine} edge flags.
+     */
+    final int getViewReadyEdges(int id, int rawX, int rawY) {
+        final RefreshableViewIndex viewIndex = refreshableViewIndex;
+        final View view = viewIndex.getView(id);
+        final ViewDelegate delegate = viewIndex.getDelegate(id);
+
+        if (delegate != null && view != null && view.isShown()) {
+            // Convert the X/Y into the View's co-ordinate system
+            final int viewX = rawX - viewIndex.getLeft(id);
+            final int viewY = rawY - viewIndex.getTop(id);
+
+            int edges = PullGestureEngine.EDGE_NONE;
+            /*If refresh bottom enabled*/
+            if (onRefreshBottomListener != null
+                    && delegate.isReadyForPullDown(view, viewX, viewY)) {
+                edges |= PullGestureEngine.EDGE_BOTTOM;
+            }
+            /*If refresh top enabled*/
+            if (onRefreshListener != null && delegate.isReadyForPull(view, viewX, viewY)) {
+                edges |= PullGestureEngine.EDGE_TOP;
             }
+            return edges;
         }
-        return false;
+
+        return PullGestureEngine.EDGE_NONE;
     }
 
-    final boolean isViewBeingDraggedDown(View view, MotionEvent event) {
-        if (view.isShown() && refreshableViews.containsKey(view)) {
-            // First we need to set the rect to the view's screen co-ordinates
-            view.getLocationOnScreen(mViewLocationResult);
-            final int viewLeft = mViewLocationResult[0], viewTop = mViewLocationResult[1];
-            mRect.set(viewLeft, viewTop, viewLeft + view.getWidth(), viewTop + view.getHeight());
+    private boolean isBeingDragged() {
+        return gestureEngine.isBeingDragged();
+    }
 
-//            if (DEBUG) Log.d(LOG_TAG, "isViewBeingDraggedDown. View Rect: " + mRect.toString());
+    /**
+     * @return true if the current gesture started on a refreshable view which is ready to be
+     *         pulled, or is already a pull.
+     */
+    final boolean isPullPending() {
+        return gestureEngine.getState() != PullGestureEngine.STATE_IDLE;
+    }
 
-            final int rawX = (int) event.getRawX(), rawY = (int) event.getRawY();
-//            if (DEBUG) Log.d(LOG_TAG, "RawX: " + rawX + ", RawY: " + rawY);
-            if (mRect.contains(rawX, rawY)) {
-//                if (DEBUG) Log.d(LOG_TAG, "mRect.contains(rawX, rawY)=" + true);
-                // The Touch Event is within the View's display Rect
-                ViewDelegate delegate = refreshableViews.get(view);
-                if (delegate != null) {
-                    // Now call the delegate, converting the X/Y into the View's co-ordinate system
+    /**
+     * @return true if the current gesture started on a refreshable view which was not ready to
+     *         be pulled, and may still turn into a pull if the view reaches an edge.
+     */
+    final boolean isHandoffPending() {
+        return handoffId >= 0 && gestureEngine.getState() == PullGestureEngine.STATE_IDLE;
+    }
 
-                    return delegate.isReadyForPullDown(view, rawX - mRect.left, rawY - mRect.top);
-                }
-            }
+    private void checkForPullHandoff(MotionEvent event, float x, float y) {
+        if (!canRefresh(true) || handoffId >= refreshableViewIndex.getViewCount()) return;
+
+        final int edges = getViewReadyEdges(handoffId, (int) event.getRawX(),
+                (int) event.getRawY());
+        if (edges != PullGestureEngine.EDGE_NONE) {
+            // The view has reached an edge, so treat this as the start of a potential pull
+            viewBeingDragged = refreshableViewIndex.getView(handoffId);
+            gestureEngine.onDown(x, y, edges);
         }
-        return false;
     }
 
     final boolean onTouchEvent(MotionEvent event) {
@@ -386,14 +602,18 @@ public class PullToRefreshAttacher {
             Log.d(LOG_TAG, "onTouchEvent: " + event.toString());
         }
 
+        if (useNestedScrolling) {
+            return false;
+        }
+
         // Record whether our handling is started from ACTION_DOWN
         if (event.getAction() == MotionEvent.ACTION_DOWN) {
             handlingTouchEventFromDown = true;
         }
 
         // If we're being called from ACTION_DOWN then we must call through to
-        // onInterceptTouchEvent until it sets isBeingDragged
-        if (handlingTouchEventFromDown && !isBeingDragged) {
+        // onInterceptTouchEvent until the gesture is being dragged
+        if (handlingTouchEventFromDown && !isBeingDragged()) {
             onInterceptTouchEvent(event);
             return true;
         }
@@ -411,39 +631,36 @@ public class PullToRefreshAttacher {
                     return false;
                 }
 
-                final float y = event.getY();
-
-                if (isBeingDragged && y != lastMotionY) {
-
-                    float yDx = -mTouchSlop - 1;
-
-                    if (isOnTop) {
-                        yDx = y - lastMotionY;
-                    } else if (isOnBottom) {
-                        yDx = lastMotionY == -1 ? (y - lastMotionY) : (lastMotionY - y);
+                if (useHistoricalMotionEvents) {
+                    // Process any batched samples first, so that fast pulls are tracked accurately
+                    for (int h = 0, z = event.getHistorySize(); h < z && isBeingDragged(); h++) {
+                        gestureEngine.onMove(event.getHistoricalY(h));
                     }
-
-                    if (yDx >= -mTouchSlop) {
-
-                        onPull(viewBeingDragged, y);
-                        // Only record the y motion if the user has scrolled down.
-
-                        if (yDx > 0f) {
-                            lastMotionY = y;
-                        }
-                    } else {
-                        onPullEnded();
-                        resetTouch();
-                    }
-
                 }
+                if (velocityTracker != null) {
+                    velocityTracker.addMovement(event);
+                }
+                gestureEngine.onMove(event.getY());
                 break;
             }
 
             case MotionEvent.ACTION_CANCEL:
             case MotionEvent.ACTION_UP: {
-                checkScrollForRefresh(viewBeingDragged);
-                if (isBeingDragged) {
+                handoffId = -1;
+                if (useHistoricalMotionEvents && event.getAction() == MotionEvent.ACTION_UP) {
+                    // Make sure the peak of the pull is used when deciding whether to refresh
+                    for (int h = 0, z = event.getHistorySize(); h < z; h++) {
+                        gestureEngine.onRelease(event.getHistoricalY(h));
+                    }
+                    gestureEngine.onRelease(event.getY());
+                }
+                if (velocityTracker != null) {
+                    velocityTracker.addMovement(event);
+                }
+                if (!checkScrollForRefresh(viewBeingDragged)) {
+                    checkFlingForRefresh(viewBeingDragged);
+                }
+                if (isBeingDragged()) {
                     onPullEnded();
                 }
                 resetTouch();
@@ -454,8 +671,88 @@ public class PullToRefreshAttacher {
         return true;
     }
 
+    /**
+     * @return true if a nested scroll from {@code target} should be used to detect pulls.
+     */
+    final boolean onStartNestedScroll(View target) {
+        return useNestedScrolling && canRefresh(true) && refreshableViews.containsKey(target);
+    }
+
+    final void onNestedScrollAccepted(View target) {
+        resetTouch();
+    }
+
+    /**
+     * Called before the nested scrolling child scrolls. If the user is moving back while pulling,
+     * we consume the scroll so that the pull is reduced before the child scrolls again.
+     *
+     * @return The vertical distance consumed.
+     */
+    final int onNestedPreScroll(View target, int dy) {
+        if (!isBeingDragged() || isRefreshing()) {
+            return 0;
+        }
+
+        int consumed = 0;
+        if (gestureEngine.isOnTop() && dy > 0) {
+            consumed = (int) Math.min(dy, nestedPullDistance);
+        } else if (gestureEngine.isOnBottom() && dy < 0) {
+            consumed = (int) Math.max(dy, -nestedPullDistance);
+        }
+
+        if (consumed != 0) {
+            nestedPullDistance -= Math.abs(consumed);
+            onNestedPull();
+        }
+        return consumed;
+    }
+
+    /**
+     * Called after the nested scrolling child has scrolled. Any scroll it could not consume at
+     * its top or bottom edge becomes a pull.
+     */
+    final void onNestedScroll(View target, int dyUnconsumed) {
+        if (dyUnconsumed == 0 || isRefreshing()) return;
+
+        if (!isBeingDragged()) {
+            // Scrolling up past the top pulls from the top edge, and vice versa
+            final int edge;
+            if (dyUnconsumed < 0 && onRefreshListener != null) {
+                edge = PullGestureEngine.EDGE_TOP;
+            } else if (dyUnconsumed > 0 && onRefreshBottomListener != null) {
+                edge = PullGestureEngine.EDGE_BOTTOM;
+            } else {
+                return;
+            }
+
+            viewBeingDragged = target;
+            nestedPullDistance = 0f;
+            gestureEngine.onPullDetected(edge, 0f);
+        }
+
+        if (isBeingDragged()) {
+            nestedPullDistance += Math.abs(dyUnconsumed);
+            onNestedPull();
+        }
+    }
+
+    final void onStopNestedScroll(View target) {
+        if (isBeingDragged()) {
+            checkScrollForRefresh(viewBeingDragged);
+            if (isBeingDragged()) {
+                onPullEnded();
+            }
+        }
+        resetTouch();
+    }
+
+    private void onNestedPull() {
+        // Convert the distance to a y co-ordinate in the direction of the pull
+        gestureEngine.onMove(gestureEngine.isOnTop() ? nestedPullDistance : -nestedPullDistance);
+    }
+
     void minimizeHeader() {
-        if (isDestroyed()) return;
+        if (isDestroyed() || !ownsHeader()) return;
 
         headerTransformer.onRefreshMinimized();
 
@@ -465,9 +762,13 @@ public class PullToRefreshAttacher {
     }
 
     void resetTouch() {
-        isBeingDragged = false;
+        cancelPullProgress();
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
+        gestureEngine.reset();
         handlingTouchEventFromDown = false;
-        initialMotionY = lastMotionY = pullBeginY = -1f;
     }
 
     void onPullStarted(float y) {
@@ -475,22 +776,34 @@ public class PullToRefreshAttacher {
             Log.d(LOG_TAG, "onPullStarted");
         }
         showHeaderView();
-        pullBeginY = y;
+
+        if (refreshOnFling) {
+            // VelocityTracker instances are pooled, so this does not allocate
+            if (velocityTracker != null) {
+                velocityTracker.clear();
+            } else {
+                velocityTracker = VelocityTracker.obtain();
+            }
+        }
     }
 
-    void onPull(View view, float y) {
+    void onPull(View view, float scrollLength) {
         if (DEBUG) {
             Log.d(LOG_TAG, "onPull");
         }
 
         final float pxScrollForRefresh = getScrollNeededForRefresh(view);
-        final float scrollLength = isOnTop ? (y - pullBeginY) : (pullBeginY - y);
 
         if (scrollLength < pxScrollForRefresh) {
-            headerTransformer.onPulled(scrollLength / pxScrollForRefresh);
+            postPullProgress(scrollLength / pxScrollForRefresh);
         } else {
+            // Any pending progress is now out of date
+            cancelPullProgress();
+
             if (refreshOnUp) {
-                headerTransformer.onReleaseToRefresh();
+                if (ownsHeader()) {
+                    headerTransformer.onReleaseToRefresh();
+                }
             } else {
                 setRefreshingInt(view, true, true);
             }
@@ -498,6 +811,27 @@ public class PullToRefreshAttacher {
 
     }
 
+    /**
+     * Pull progress is coalesced so that the HeaderTransformer only receives the latest value,
+     * once per display frame, no matter how many move events are delivered in that frame.
+     */
+    private void postPullProgress(float progress) {
+        pendingPullProgress = progress;
+        if (!isPullProgressPosted) {
+            isPullProgressPosted = true;
+            Compat.postOnAnimation(headerView, pullProgressRunnable);
+        }
+    }
+
+    private void cancelPullProgress() {
+        if (isPullProgressPosted) {
+            isPullProgressPosted = false;
+            if (headerView != null) {
+                headerView.removeCallbacks(pullProgressRunnable);
+            }
+        }
+    }
+
     void onPullEnded() {
         if (DEBUG) {
             Log.d(LOG_TAG, "onPullEnded");
@@ -508,7 +842,11 @@ public class PullToRefreshAttacher {
     }
 
     void showHeaderView() {
-        updateHeaderViewPosition(headerView);
+        ensureHeader();
+        // Another attacher which is refreshing keeps the header until it has finished
+        if (!headerHost.setOwner(this)) return;
+
+        headerHost.updateHeaderViewPosition(this);
         if (headerTransformer.showHeaderView()) {
             if (headerViewListener != null) {
                 headerViewListener.onStateChanged(headerView, HeaderViewListener.STATE_VISIBLE);
@@ -517,6 +855,10 @@ public class PullToRefreshAttacher {
     }
 
     void hideHeaderView() {
+        // If the header hasn't been created there is nothing to hide. If it is shared, another
+        // attacher may be using it now
+        if (!ownsHeader()) return;
+
         if (headerTransformer.hideHeaderView()) {
             if (headerViewListener != null) {
                 headerViewListener.onStateChanged(headerView, HeaderViewListener.STATE_HIDDEN);
@@ -524,27 +866,20 @@ public class PullToRefreshAttacher {
         }
     }
 
+    /**
+     * @return true if the header has been created and no other attacher sharing it has shown it
+     *         since this one did.
+     */
+    private boolean ownsHeader() {
+        return headerHost != null && headerHost.isOwnedBy(this);
+    }
+
     protected final Activity getAttachedActivity() {
         return activity;
     }
 
     protected EnvironmentDelegate createDefaultEnvironmentDelegate() {
-        return new EnvironmentDelegate() {
-            @Override
-            public Context getContextForInflater(Activity activity) {
-                Context context = null;
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
-                    ActionBar ab = activity.getActionBar();
-                    if (ab != null) {
-                        context = ab.getThemedContext();
-                    }
-                }
-                if (context == null) {
-                    context = activity;
-                }
-                return context;
-            }
-        };
+        return new DefaultEnvironmentDelegate();
     }
 
     protected HeaderTransformer createDefaultHeaderTransformer() {
@@ -552,25 +887,26 @@ public class PullToRefreshAttacher {
     }
 
     private boolean checkScrollForRefresh(View view) {
-        if (isBeingDragged && refreshOnUp && view != null) {
-            if (isOnTop) {
-//                if (DEBUG) Log.d(LOG_TAG, "pullBeginY: " + pullBeginY);
-//                if (DEBUG) Log.d(LOG_TAG, "lastMotionY: " + lastMotionY);
-//                if (DEBUG) Log.d(LOG_TAG, "pullBeginY - lastMotionY: " + (lastMotionY - pullBeginY));
-//                if (DEBUG) Log.d(LOG_TAG, "getScrollNeededForRefresh(view): " + getScrollNeededForRefresh(view));
-                if (lastMotionY - pullBeginY >= getScrollNeededForRefresh(view)) {
-                    setRefreshingInt(view, true, true);
-                    return true;
-                }
-            } else if (isOnBottom) {
-//                if (DEBUG) Log.d(LOG_TAG, "pullBeginY: " + pullBeginY);
-//                if (DEBUG) Log.d(LOG_TAG, "lastMotionY: " + lastMotionY);
-//                if (DEBUG) Log.d(LOG_TAG, "pullBeginY - lastMotionY: " + (pullBeginY - lastMotionY));
-//                if (DEBUG) Log.d(LOG_TAG, "getScrollNeededForRefresh(view): " + getScrollNeededForRefresh(view));
-                if (pullBeginY - lastMotionY >= getScrollNeededForRefresh(view)) {
-                    setRefreshingInt(view, true, true);
-                    return true;
-                }
+        if (isBeingDragged() && refreshOnUp && view != null) {
+            if (gestureEngine.getPeakPullDistance() >= getScrollNeededForRefresh(view)) {
+                setRefreshingInt(view, true, true);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean checkFlingForRefresh(View view) {
+        if (isBeingDragged() && velocityTracker != null && view != null) {
+            velocityTracker.computeCurrentVelocity(1000);
+            final float yVelocity = velocityTracker.getYVelocity();
+
+            // Pulling from the top is a downwards fling, pulling from the bottom is upwards
+            final float pullVelocity = gestureEngine.isOnTop() ? yVelocity
+                    : (gestureEngine.isOnBottom() ? -yVelocity : 0f);
+            if (pullVelocity >= refreshFlingVelocity) {
+                setRefreshingInt(view, true, true);
+                return true;
             }
         }
         return false;
@@ -612,8 +948,8 @@ public class PullToRefreshAttacher {
         isRefreshing = false;
 
         // Remove any minimize callbacks
-        if (refreshMinimize) {
-            getHeaderView().removeCallbacks(refreshMinimizeRunnable);
+        if (refreshMinimize && headerView != null) {
+            headerView.removeCallbacks(refreshMinimizeRunnable);
         }
 
         // Hide Header View
@@ -626,14 +962,16 @@ public class PullToRefreshAttacher {
 
         // Call OnRefreshListener if this call has originated from a touch event
         if (fromTouch) {
-            if (onRefreshListener != null && isOnTop) {
+            if (onRefreshListener != null && gestureEngine.isOnTop()) {
                 onRefreshListener.onRefreshStarted(view);
-            } else if (onRefreshBottomListener != null && isOnBottom) {
+            } else if (onRefreshBottomListener != null && gestureEngine.isOnBottom()) {
                 onRefreshBottomListener.onRefreshBottomStarted(view);
             }
         }
 
-        // Call Transformer
+        // Call Transformer, unless another attacher sharing the header is refreshing with it
+        ensureHeader();
+        if (!headerHost.setOwner(this)) return;
         headerTransformer.onRefreshStarted();
 
         // Show Header View
@@ -694,8 +1032,6 @@ public class PullToRefreshAttacher {
             wlp = (WindowManager.LayoutParams) headerView.getTag();
         }
 
-        Log.i(LOG_TAG, "wlp != null && wlp.y != mRect.top = " + (wlp != null && wlp.y != mRect.top));
-
         if (wlp != null && wlp.y != mRect.top) {
             wlp.y = mRect.top;
             activity.getWindowManager().updateViewLayout(headerView, wlp);
@@ -708,6 +1044,83 @@ public class PullToRefreshAttacher {
         }
     }
 
+    private static class DefaultEnvironmentDelegate implements EnvironmentDelegate {
+        @Override
+        public Context getContextForInflater(Activity activity) {
+            Context context = null;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+                ActionBar ab = activity.getActionBar();
+                if (ab != null) {
+                    context = ab.getThemedContext();
+                }
+            }
+            if (context == null) {
+                context = activity;
+            }
+            return context;
+        }
+    }
+
+    private final ViewTreeListener viewTreeListener = new ViewTreeListener();
+
+    private class ViewTreeListener implements ViewTreeObserver.OnGlobalLayoutListener,
+            ViewTreeObserver.OnScrollChangedListener {
+        @Override
+        public void onGlobalLayout() {
+            onRefreshableViewsLayoutChanged();
+        }
+
+        @Override
+        public void onScrollChanged() {
+            onRefreshableViewsLayoutChanged();
+        }
+    }
+
+    private final PullGestureEngine.Callback gestureCallback = new PullGestureEngine.Callback() {
+        @Override
+        public void onStateChanged(int oldState, int newState) {
+            if (newState == PullGestureEngine.STATE_PENDING) {
+                // The gesture may become a pull, so make sure the header is ready
+                ensureHeader();
+            } else if (newState == PullGestureEngine.STATE_PULLING) {
+                onPullStarted(gestureEngine.getPullBeginY());
+            } else if (newState == PullGestureEngine.STATE_IDLE) {
+                // The gesture has moved in the wrong direction, so it can no longer be a pull
+                if (oldState == PullGestureEngine.STATE_PULLING) {
+                    onPullEnded();
+                }
+                resetTouch();
+            }
+        }
+
+        @Override
+        public void onPulled(float distance) {
+            onPull(viewBeingDragged, distance);
+        }
+    };
+
+    private final Runnable pullProgressRunnable = new Runnable() {
+        @Override
+        public void run() {
+            isPullProgressPosted = false;
+            if (isBeingDragged() && !isRefreshing && ownsHeader()) {
+                headerTransformer.onPulled(pendingPullProgress);
+            }
+        }
+    };
+
+    private final MessageQueue.IdleHandler headerIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            // If the header has already been needed, this does nothing
+            if (!isDestroyed) {
+                ensureHeader();
+            }
+            // Only run once
+            return false;
+        }
+    };
+
     private final Runnable refreshMinimizeRunnable = new Runnable() {
         @Override
         public void run() {
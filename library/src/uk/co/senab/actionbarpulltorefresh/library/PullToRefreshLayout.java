@@ -16,15 +16,18 @@
 
 package uk.co.senab.actionbarpulltorefresh.library;
 
+import android.annotation.TargetApi;
 import android.app.Activity;
 import android.content.Context;
 import android.content.res.Configuration;
 import android.content.res.TypedArray;
+import android.os.Build;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewParent;
 import android.widget.FrameLayout;
 import uk.co.senab.actionbarpulltorefresh.library.listeners.HeaderViewListener;
 import uk.co.senab.actionbarpulltorefresh.library.viewdelegates.ViewDelegate;
@@ -40,8 +43,29 @@ public class PullToRefreshLayout extends FrameLayout {
     private static final boolean DEBUG = false;
     private static final String LOG_TAG = "PullToRefreshLayout";
 
+    // Copied from View.SCROLL_AXIS_VERTICAL, which was added in Android L (API 21)
+    private static final int SCROLL_AXIS_VERTICAL = 1 << 1;
+
     private PullToRefreshAttacher mPullToRefreshAttacher;
 
+    /**
+     * Whether the current gesture's ACTION_DOWN has not yet been given to the attacher. It is
+     * deferred until our descendants have seen it, so that nested layouts can claim it first.
+     */
+    private boolean mIsDownPending;
+
+    /**
+     * Whether a nested PullToRefreshLayout has claimed the current gesture.
+     */
+    private boolean mDescendantClaimedGesture;
+
+    /**
+     * Whether the current gesture may be handed off from a scroll to a pull. Once set, requests
+     * to disallow intercepting are ignored until the gesture ends, including after the handoff
+     * has armed the attacher.
+     */
+    private boolean mIsHandoffGesture;
+
     public PullToRefreshLayout(Context context) {
         this(context, null);
     }
@@ -113,11 +137,45 @@ public class PullToRefreshLayout extends FrameLayout {
     }
 
 
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        final int action = event.getAction();
+        if (action == MotionEvent.ACTION_DOWN) {
+            mDescendantClaimedGesture = false;
+            mIsHandoffGesture = false;
+            mIsDownPending = true;
+        }
+
+        final boolean handled = super.dispatchTouchEvent(event);
+
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            mIsHandoffGesture = false;
+        }
+
+        // Our descendants have now seen the ACTION_DOWN. If none of the nested layouts have
+        // claimed the gesture, it's our turn to check whether it could become a pull
+        if (mIsDownPending) {
+            mIsDownPending = false;
+            if (!mDescendantClaimedGesture && isEnabled() && mPullToRefreshAttacher != null
+                    && getChildCount() > 0) {
+                mPullToRefreshAttacher.onInterceptTouchEvent(event);
+                claimGestureIfPullPending();
+                mIsHandoffGesture = mPullToRefreshAttacher.isHandoffPending();
+            }
+        }
+        return handled;
+    }
+
     @Override
     public final boolean onInterceptTouchEvent(MotionEvent event) {
         if (DEBUG) {
             Log.d(LOG_TAG, "onInterceptTouchEvent. " + event.toString());
         }
+        // The ACTION_DOWN is handled in dispatchTouchEvent(), and if a nested layout has claimed
+        // the gesture we leave it alone
+        if (event.getAction() == MotionEvent.ACTION_DOWN || mDescendantClaimedGesture) {
+            return false;
+        }
         if (isEnabled() && mPullToRefreshAttacher != null && getChildCount() > 0) {
             return mPullToRefreshAttacher.onInterceptTouchEvent(event);
         }
@@ -130,11 +188,100 @@ public class PullToRefreshLayout extends FrameLayout {
             Log.d(LOG_TAG, "onTouchEvent. " + event.toString());
         }
         if (isEnabled() && mPullToRefreshAttacher != null) {
-            return mPullToRefreshAttacher.onTouchEvent(event);
+            final boolean handled = mPullToRefreshAttacher.onTouchEvent(event);
+            if (event.getAction() == MotionEvent.ACTION_DOWN) {
+                // None of our children wanted the ACTION_DOWN, so the attacher has already
+                // handled it
+                mIsDownPending = false;
+                claimGestureIfPullPending();
+            }
+            return handled;
         }
         return super.onTouchEvent(event);
     }
 
+    /**
+     * If the attacher is going to handle the current gesture, stop any ancestor
+     * PullToRefreshLayouts from checking it.
+     */
+    private void claimGestureIfPullPending() {
+        if (!mPullToRefreshAttacher.isPullPending()) return;
+
+        for (ViewParent parent = getParent(); parent != null; parent = parent.getParent()) {
+            if (parent instanceof PullToRefreshLayout) {
+                ((PullToRefreshLayout) parent).mDescendantClaimedGesture = true;
+            }
+        }
+    }
+
+    @Override
+    public void requestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+        if (mIsHandoffGesture
+                || (mPullToRefreshAttacher != null && mPullToRefreshAttacher.isHandoffPending())) {
+            // The touched view has started scrolling. We still need to see its touch events so
+            // that the gesture can become a pull when it reaches an edge, and then so that the
+            // pull can pass the touch slop. Views such as AbsListView keep requesting this on
+            // every move, so it is ignored until the gesture ends. Our parent should still
+            // honour the request
+            mIsHandoffGesture = true;
+            if (getParent() != null) {
+                getParent().requestDisallowInterceptTouchEvent(disallowIntercept);
+            }
+            return;
+        }
+        super.requestDisallowInterceptTouchEvent(disallowIntercept);
+    }
+
+    /*
+     * The following methods implement the nested scrolling parent API added in Android L, and
+     * are only called by the framework on Android L and above. ViewGroup's own implementations
+     * keep track of the nested scroll axes, so are called through to where they exist.
+     */
+
+    @Override
+    public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
+        return isEnabled() && mPullToRefreshAttacher != null
+                && (nestedScrollAxes & SCROLL_AXIS_VERTICAL) != 0
+                && mPullToRefreshAttacher.onStartNestedScroll(target);
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    @Override
+    public void onNestedScrollAccepted(View child, View target, int axes) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            super.onNestedScrollAccepted(child, target, axes);
+        }
+        if (mPullToRefreshAttacher != null) {
+            mPullToRefreshAttacher.onNestedScrollAccepted(target);
+        }
+    }
+
+    @Override
+    public void onNestedPreScroll(View target, int dx, int dy, int[] consumed) {
+        if (mPullToRefreshAttacher != null) {
+            consumed[1] = mPullToRefreshAttacher.onNestedPreScroll(target, dy);
+        }
+    }
+
+    @Override
+    public void onNestedScroll(View target, int dxConsumed, int dyConsumed, int dxUnconsumed,
+            int dyUnconsumed) {
+        if (mPullToRefreshAttacher != null) {
+            mPullToRefreshAttacher.onNestedScroll(target, dyUnconsumed);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    @Override
+    public void onStopNestedScroll(View target) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            super.onStopNestedScroll(target);
+        }
+        if (mPullToRefreshAttacher != null) {
+            mPullToRefreshAttacher.onStopNestedScroll(target);
+        }
+    }
+
     @Override
     public FrameLayout.LayoutParams generateLayoutParams(AttributeSet attrs) {
         return new PullToRefreshLayout.LayoutParams(getContext(), attrs);
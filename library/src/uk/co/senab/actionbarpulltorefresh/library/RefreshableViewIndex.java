@@ -0,0 +1,178 @@
+/*
+ * Copyright 2013 Chris Banes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.co.senab.actionbarpulltorefresh.library;
+
+import android.view.View;
+import android.view.ViewParent;
+import uk.co.senab.actionbarpulltorefresh.gesture.HitTestIndex;
+import uk.co.senab.actionbarpulltorefresh.library.viewdelegates.ViewDelegate;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+
+/**
+ * Spatial index of the refreshable views, used to resolve a touch event to the views under it.
+ * <p/>
+ * The set of views is copied in with {@link #setViews(Map)} after it changes, and each view is
+ * given an id which stays the same until the next call. The views' screen bounds are held in a
+ * {@link HitTestIndex}, which is recomputed by {@link #updateBounds()} after that and after every
+ * layout pass or scroll, so that a hit test is just a binary search followed by arithmetic.
+ * Views which overlap are ordered by their depth in the view hierarchy, so that an inner view is
+ * checked before a container which wraps it.
+ * <p/>
+ * Views are only weakly referenced, so that the index does not keep views alive which the
+ * attacher's map of refreshable views has let go of.
+ */
+final class RefreshableViewIndex {
+
+    private final HitTestIndex mHitTestIndex = new HitTestIndex();
+
+    @SuppressWarnings("unchecked")
+    private WeakReference<View>[] mViews = new WeakReference[0];
+    private ViewDelegate[] mDelegates = new ViewDelegate[0];
+    private int[] mLefts = new int[0];
+    private int[] mTops = new int[0];
+    private int mViewCount;
+
+    private int[] mHits = new int[0];
+
+    private final int[] mLocation = new int[2];
+
+    /**
+     * Replace the views in the index with the given views. Ids given out before this call are no
+     * longer valid. The views can't be hit tested until {@link #updateBounds()} has been called.
+     */
+    void setViews(Map<View, ViewDelegate> refreshableViews) {
+        clear();
+        ensureCapacity(refreshableViews.size());
+
+        for (Map.Entry<View, ViewDelegate> entry : refreshableViews.entrySet()) {
+            final View view = entry.getKey();
+            if (view == null) continue;
+
+            final int id = mViewCount++;
+            if (mViews[id] == null || mViews[id].get() != view) {
+                mViews[id] = new WeakReference<View>(view);
+            }
+            mDelegates[id] = entry.getValue();
+        }
+    }
+
+    /**
+     * Recompute the screen bounds of the views. This does not allocate, so can be called for
+     * every layout pass and scroll.
+     */
+    void updateBounds() {
+        mHitTestIndex.clear();
+
+        for (int id = 0; id < mViewCount; id++) {
+            final View view = mViews[id].get();
+            if (view == null) continue;
+
+            view.getLocationOnScreen(mLocation);
+            mLefts[id] = mLocation[0];
+            mTops[id] = mLocation[1];
+            mHitTestIndex.add(id, getDepth(view), mLocation[0], mLocation[1],
+                    mLocation[0] + view.getWidth(), mLocation[1] + view.getHeight());
+        }
+    }
+
+    /**
+     * Remove all entries from the index.
+     */
+    void clear() {
+        for (int i = 0; i < mViewCount; i++) {
+            mDelegates[i] = null;
+        }
+        mViewCount = 0;
+        mHitTestIndex.clear();
+    }
+
+    /**
+     * @return the number of ids given out by the last call to {@link #setViews(Map)}.
+     */
+    int getViewCount() {
+        return mViewCount;
+    }
+
+    /**
+     * @return the view with the id, or null if it has been garbage collected.
+     */
+    View getView(int id) {
+        return mViews[id].get();
+    }
+
+    ViewDelegate getDelegate(int id) {
+        return mDelegates[id];
+    }
+
+    /**
+     * @return the left of the view with the id on screen, as of the last call to
+     *         {@link #updateBounds()}.
+     */
+    int getLeft(int id) {
+        return mLefts[id];
+    }
+
+    /**
+     * @return the top of the view with the id on screen, as of the last call to
+     *         {@link #updateBounds()}.
+     */
+    int getTop(int id) {
+        return mTops[id];
+    }
+
+    /**
+     * Find every view whose bounds contain the given screen co-ordinates, innermost first. Their
+     * ids can be retrieved with {@link #getHit(int)}.
+     *
+     * @return the number of matching views.
+     */
+    int hitTestAll(int x, int y) {
+        return mHitTestIndex.hitTestAll(x, y, mHits);
+    }
+
+    /**
+     * @return the id of the {@code i}th view found by the last call to
+     *         {@link #hitTestAll(int, int)}.
+     */
+    int getHit(int i) {
+        return mHitTestIndex.getId(mHits[i]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void ensureCapacity(int capacity) {
+        if (mViews.length < capacity) {
+            final WeakReference<View>[] views = new WeakReference[capacity];
+            System.arraycopy(mViews, 0, views, 0, mViews.length);
+            mViews = views;
+            mDelegates = new ViewDelegate[capacity];
+            mLefts = new int[capacity];
+            mTops = new int[capacity];
+            mHits = new int[capacity];
+        }
+        mHitTestIndex.ensureCapacity(capacity);
+    }
+
+    private static int getDepth(View view) {
+        int depth = 0;
+        for (ViewParent parent = view.getParent(); parent != null; parent = parent.getParent()) {
+            depth++;
+        }
+        return depth;
+    }
+}
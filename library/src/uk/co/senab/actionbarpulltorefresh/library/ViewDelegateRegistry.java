@@ -0,0 +1,246 @@
+/*
+ * Copyright 2013 Chris Banes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.co.senab.actionbarpulltorefresh.library;
+
+import android.view.View;
+import uk.co.senab.actionbarpulltorefresh.library.viewdelegates.AbsListViewDelegate;
+import uk.co.senab.actionbarpulltorefresh.library.viewdelegates.CanScrollVerticallyDelegate;
+import uk.co.senab.actionbarpulltorefresh.library.viewdelegates.ContainerViewDelegate;
+import uk.co.senab.actionbarpulltorefresh.library.viewdelegates.RecyclerViewDelegate;
+import uk.co.senab.actionbarpulltorefresh.library.viewdelegates.ScrollYDelegate;
+import uk.co.senab.actionbarpulltorefresh.library.viewdelegates.ViewDelegate;
+import uk.co.senab.actionbarpulltorefresh.library.viewdelegates.ViewPagerDelegate;
+import uk.co.senab.actionbarpulltorefresh.library.viewdelegates.WebViewDelegate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Resolves the {@link ViewDelegate} to use for a view from its class.
+ * <p/>
+ * The built-in delegates are shared by the whole process. A view's class hierarchy is walked to
+ * find the closest registered class, and the result is cached for each concrete view class.
+ * Stateless delegates are shared between all views, so no reflection or allocation happens after
+ * the first lookup for a class.
+ * <p/>
+ * Each instance also holds the custom delegates registered through
+ * {@link ActionBarPullToRefresh.SetupWizard#useViewDelegate(Class, ViewDelegate)} and
+ * {@link ActionBarPullToRefresh.SetupWizard#useViewDelegate(View, ViewDelegate)}, which take
+ * precedence over the built-in delegates. A delegate registered for a view takes precedence over
+ * one registered for its class. The instance is given to any {@link ContainerViewDelegate}, so
+ * that views within a container are resolved in the same way. All methods must be called from
+ * the UI thread.
+ */
+final class ViewDelegateRegistry implements ContainerViewDelegate.Resolver {
+
+    private static final String RECYCLER_VIEW_CLASS_NAME = "android.support.v7.widget.RecyclerView";
+    private static final String VIEW_PAGER_CLASS_NAME = "android.support.v4.view.ViewPager";
+
+    /**
+     * Provides the delegate for a view, either a shared instance or a new one per view.
+     */
+    private interface DelegateProvider {
+        ViewDelegate get();
+    }
+
+    private static final class SharedDelegateProvider implements DelegateProvider {
+        private final ViewDelegate mDelegate;
+
+        SharedDelegateProvider(ViewDelegate delegate) {
+            mDelegate = delegate;
+        }
+
+        @Override
+        public ViewDelegate get() {
+            return mDelegate;
+        }
+    }
+
+    private static final HashMap<Class<?>, DelegateProvider> BUILT_IN_DELEGATES
+            = new HashMap<Class<?>, DelegateProvider>();
+    private static final HashMap<Class<?>, DelegateProvider> RESOLVED_BUILT_IN_DELEGATES
+            = new HashMap<Class<?>, DelegateProvider>();
+
+    /**
+     * Used for views which do not have a built-in delegate.
+     */
+    private static final DelegateProvider FALLBACK_DELEGATE
+            = new SharedDelegateProvider(new CanScrollVerticallyDelegate());
+
+    static {
+        addBuiltInDelegates(AbsListViewDelegate.SUPPORTED_VIEW_CLASSES,
+                new SharedDelegateProvider(new AbsListViewDelegate()));
+        addBuiltInDelegates(ScrollYDelegate.SUPPORTED_VIEW_CLASSES,
+                new SharedDelegateProvider(new ScrollYDelegate()));
+
+        // WebViewDelegate caches metrics for the view it is used with, so can not be shared
+        addBuiltInDelegates(WebViewDelegate.SUPPORTED_VIEW_CLASSES, new DelegateProvider() {
+            @Override
+            public ViewDelegate get() {
+                return new WebViewDelegate();
+            }
+        });
+
+        // RecyclerView is an optional dependency, so only register its delegate if it's available
+        if (isClassAvailable(RECYCLER_VIEW_CLASS_NAME)) {
+            addBuiltInDelegates(RecyclerViewDelegate.SUPPORTED_VIEW_CLASSES,
+                    new SharedDelegateProvider(new RecyclerViewDelegate()));
+        }
+
+        // ViewPagerDelegate caches the scrollable view of each page, so can not be shared
+        if (isClassAvailable(VIEW_PAGER_CLASS_NAME)) {
+            addBuiltInDelegates(ViewPagerDelegate.SUPPORTED_VIEW_CLASSES, new DelegateProvider() {
+                @Override
+                public ViewDelegate get() {
+                    return new ViewPagerDelegate();
+                }
+            });
+        }
+    }
+
+    private static void addBuiltInDelegates(Class[] supportedViews, DelegateProvider provider) {
+        for (int i = 0, z = supportedViews.length; i < z; i++) {
+            BUILT_IN_DELEGATES.put(supportedViews[i], provider);
+        }
+    }
+
+    private static boolean isClassAvailable(String className) {
+        try {
+            Class.forName(className, false, ViewDelegateRegistry.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the built-in delegate for the view. Views which are not supported by any of the
+     *         built-in delegates get a generic delegate.
+     */
+    ViewDelegate getBuiltInViewDelegate(final View view) {
+        return attach(getBuiltInDelegateProvider(view).get());
+    }
+
+    /**
+     * Give a {@link ContainerViewDelegate} this registry, so that it can resolve the delegates
+     * of the views within its container.
+     *
+     * @return the delegate.
+     */
+    ViewDelegate attach(ViewDelegate delegate) {
+        if (delegate instanceof ContainerViewDelegate) {
+            ((ContainerViewDelegate) delegate).setViewDelegateResolver(this);
+        }
+        return delegate;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Custom delegates take precedence over the built-in delegates.
+     */
+    @Override
+    public ViewDelegate getViewDelegate(View view) {
+        final ViewDelegate customDelegate = getCustomViewDelegate(view);
+        if (customDelegate != null) {
+            return customDelegate;
+        }
+        final DelegateProvider provider = getBuiltInDelegateProvider(view);
+        return provider != FALLBACK_DELEGATE ? attach(provider.get()) : null;
+    }
+
+    private static DelegateProvider getBuiltInDelegateProvider(final View view) {
+        final Class<?> viewClass = view.getClass();
+
+        DelegateProvider provider = RESOLVED_BUILT_IN_DELEGATES.get(viewClass);
+        if (provider == null) {
+            // Walk up the class hierarchy to find the closest supported class
+            for (Class<?> clazz = viewClass; clazz != null && provider == null;
+                    clazz = clazz.getSuperclass()) {
+                provider = BUILT_IN_DELEGATES.get(clazz);
+            }
+            if (provider == null) {
+                provider = FALLBACK_DELEGATE;
+            }
+            RESOLVED_BUILT_IN_DELEGATES.put(viewClass, provider);
+        }
+        return provider;
+    }
+
+    private final HashMap<Class<?>, ViewDelegate> mCustomDelegates
+            = new HashMap<Class<?>, ViewDelegate>();
+    private final HashMap<Class<?>, ViewDelegate> mResolvedCustomDelegates
+            = new HashMap<Class<?>, ViewDelegate>();
+
+    /**
+     * Custom delegates for single views. The views are weakly referenced, so the delegates must
+     * not reference their views strongly.
+     */
+    private final WeakHashMap<View, ViewDelegate> mViewDelegates
+            = new WeakHashMap<View, ViewDelegate>();
+
+    /**
+     * Register a custom delegate for just the given view.
+     */
+    void register(View view, ViewDelegate delegate) {
+        mViewDelegates.put(view, attach(delegate));
+    }
+
+    /**
+     * Register a custom delegate for views which are an instance of {@code viewClass}.
+     */
+    void register(Class<?> viewClass, ViewDelegate delegate) {
+        mCustomDelegates.put(viewClass, attach(delegate));
+        mResolvedCustomDelegates.clear();
+    }
+
+    /**
+     * @return the custom delegate registered for the view, or else for the closest class or
+     *         interface of the view, or null if there isn't one.
+     */
+    ViewDelegate getCustomViewDelegate(final View view) {
+        if (!mViewDelegates.isEmpty()) {
+            final ViewDelegate viewDelegate = mViewDelegates.get(view);
+            if (viewDelegate != null) {
+                return viewDelegate;
+            }
+        }
+
+        if (mCustomDelegates.isEmpty()) return null;
+
+        final Class<?> viewClass = view.getClass();
+        if (mResolvedCustomDelegates.containsKey(viewClass)) {
+            return mResolvedCustomDelegates.get(viewClass);
+        }
+
+        // Registered classes may be interfaces, so pick the most specific assignable class
+        Class<?> bestClass = null;
+        ViewDelegate bestDelegate = null;
+        for (Map.Entry<Class<?>, ViewDelegate> entry : mCustomDelegates.entrySet()) {
+            final Class<?> clazz = entry.getKey();
+            if (clazz.isAssignableFrom(viewClass)
+                    && (bestClass == null || bestClass.isAssignableFrom(clazz))) {
+                bestClass = clazz;
+                bestDelegate = entry.getValue();
+            }
+        }
+
+        mResolvedCustomDelegates.put(viewClass, bestDelegate);
+        return bestDelegate;
+    }
+}
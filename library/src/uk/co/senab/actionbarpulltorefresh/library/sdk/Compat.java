@@ -2,6 +2,8 @@ package uk.co.senab.actionbarpulltorefresh.library.sdk;
 
 import android.os.Build;
 import android.view.View;
+import android.view.ViewTreeObserver;
+import android.webkit.WebView;
 
 public class Compat {
 
@@ -23,4 +25,17 @@ public class Compat {
         }
     }
 
+    public static void removeGlobalOnLayoutListener(ViewTreeObserver vto,
+            ViewTreeObserver.OnGlobalLayoutListener listener) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            CompatV16.removeGlobalOnLayoutListener(vto, listener);
+        } else {
+            CompatBase.removeGlobalOnLayoutListener(vto, listener);
+        }
+    }
+
+    public static float getScale(WebView webView) {
+        return CompatBase.getScale(webView);
+    }
+
 }
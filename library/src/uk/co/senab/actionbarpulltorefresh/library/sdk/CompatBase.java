@@ -1,6 +1,8 @@
 package uk.co.senab.actionbarpulltorefresh.library.sdk;
 
 import android.view.View;
+import android.view.ViewTreeObserver;
+import android.webkit.WebView;
 
 class CompatBase {
 
@@ -12,4 +14,19 @@ class CompatBase {
         view.postDelayed(runnable, 10l);
     }
 
+    @SuppressWarnings("deprecation")
+    static void removeGlobalOnLayoutListener(ViewTreeObserver vto,
+            ViewTreeObserver.OnGlobalLayoutListener listener) {
+        vto.removeGlobalOnLayoutListener(listener);
+    }
+
+    /**
+     * WebView.getScale() was deprecated in API 17 without a public replacement, so it is used on
+     * all versions.
+     */
+    @SuppressWarnings("deprecation")
+    static float getScale(WebView webView) {
+        return webView.getScale();
+    }
+
 }
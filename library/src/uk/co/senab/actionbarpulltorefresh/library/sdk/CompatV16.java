@@ -1,6 +1,7 @@
 package uk.co.senab.actionbarpulltorefresh.library.sdk;
 
 import android.view.View;
+import android.view.ViewTreeObserver;
 
 class CompatV16 {
 
@@ -8,4 +9,9 @@ class CompatV16 {
         view.postOnAnimation(runnable);
     }
 
+    static void removeGlobalOnLayoutListener(ViewTreeObserver vto,
+            ViewTreeObserver.OnGlobalLayoutListener listener) {
+        vto.removeOnGlobalLayoutListener(listener);
+    }
+
 }
@@ -21,84 +21,218 @@ import android.os.Build;
 import android.view.View;
 import android.widget.AbsListView;
 
+import java.lang.ref.WeakReference;
+
 /**
- * FIXME
+ * ViewDelegate for AbsListView derivatives, such as ListView and GridView.
+ * <p/>
+ * By default the list's edges are checked on each call. Alternatively
+ * {@link #trackScrollState(AbsListView, AbsListView.OnScrollListener)} can be used so that the
+ * edge state is kept up to date from the list's scroll callbacks, making each check a comparison
+ * of the list's position with the one the last callback saw.
  */
-public class AbsListViewDelegate implements ViewDelegate {
-
-    private static final boolean DEBUG = true;
-    private static final String LOG_TAG = "AbsListViewDelegate";
+public class AbsListViewDelegate implements EdgeDistanceViewDelegate,
+        AbsListView.OnScrollListener {
 
     public static final Class[] SUPPORTED_VIEW_CLASSES = {AbsListView.class};
 
+    private WeakReference<AbsListView> mTrackedListView;
+    private AbsListView.OnScrollListener mOnScrollListener;
+    private boolean mIsAtTop, mIsAtBottom;
+
+    /**
+     * The list's position as of the last scroll callback. If the list no longer matches it, the
+     * callbacks have stopped, such as when another scroll listener has been set.
+     */
+    private int mTrackedFirstPosition, mTrackedItemCount, mTrackedChildCount;
+    private int mTrackedFirstChildTop, mTrackedLastChildBottom;
+
+    /**
+     * Keep track of whether the given list is at an edge from its scroll callbacks, rather than
+     * checking its children each time it is touched. This replaces the list's
+     * {@link AbsListView.OnScrollListener}, so any existing listener should be passed in so that
+     * it is still called. If the list is scrolled or laid out without a callback reaching this
+     * delegate, its edges are checked directly instead.
+     * <p/>
+     * The tracked state is only used for this list, so a delegate which tracks a list should not
+     * be shared with other lists. Use it for just this list with
+     * {@code ActionBarPullToRefresh.SetupWizard#useViewDelegate(View, ViewDelegate)}. The list is
+     * only weakly referenced.
+     *
+     * @param listView The list to track.
+     * @param listener An existing scroll listener for the list, can be null.
+     */
+    public void trackScrollState(AbsListView listView, AbsListView.OnScrollListener listener) {
+        mTrackedListView = new WeakReference<AbsListView>(listView);
+        mOnScrollListener = listener;
+        updateTrackedState(listView);
+        listView.setOnScrollListener(this);
+    }
+
+    @Override
+    public void onScrollStateChanged(AbsListView view, int scrollState) {
+        if (mOnScrollListener != null) {
+            mOnScrollListener.onScrollStateChanged(view, scrollState);
+        }
+    }
+
+    @Override
+    public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount,
+            int totalItemCount) {
+        // This is also called after each layout, so the state stays correct when the data changes
+        if (isTracking(view)) {
+            updateTrackedState(view);
+        }
+
+        if (mOnScrollListener != null) {
+            mOnScrollListener.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
+        }
+    }
+
     @Override
     public boolean isReadyForPull(View view, final float x, final float y) {
-        boolean ready = false;
+        AbsListView absListView = (AbsListView) view;
 
         // First we check whether we're scrolled to the top
+        boolean ready = isTrackedStateCurrent(absListView) ? mIsAtTop : isAtTop(absListView);
+
+        // Then we have to check whether the fas scroller is enabled, and check we're not starting
+        // the gesture from the scroller
+        return ready && !isTouchOnFastScroller(absListView, x);
+    }
+
+    @Override
+    public boolean isReadyForPullDown(View view, float x, float y) {
         AbsListView absListView = (AbsListView) view;
-        if (absListView.getCount() == 0) {
-            ready = true;
-        } else if (absListView.getFirstVisiblePosition() == 0) {
-            final View firstVisibleChild = absListView.getChildAt(0);
-            ready = firstVisibleChild != null && firstVisibleChild.getTop() >= 0;
-        }
+
+        // First we check whether we're scrolled to the bottom
+        boolean ready = isTrackedStateCurrent(absListView)
+                ? mIsAtBottom : isAtBottom(absListView);
 
         // Then we have to check whether the fas scroller is enabled, and check we're not starting
         // the gesture from the scroller
-        if (ready && absListView.isFastScrollEnabled() && isFastScrollAlwaysVisible(absListView)) {
-            switch (getVerticalScrollbarPosition(absListView)) {
-                case View.SCROLLBAR_POSITION_RIGHT:
-                    ready = x < absListView.getRight() - absListView.getVerticalScrollbarWidth();
-                    break;
-                case View.SCROLLBAR_POSITION_LEFT:
-                    ready = x > absListView.getVerticalScrollbarWidth();
-                    break;
-            }
+        return ready && !isTouchOnFastScroller(absListView, x);
+    }
+
+    private boolean isTracking(AbsListView absListView) {
+        return mTrackedListView != null && mTrackedListView.get() == absListView;
+    }
+
+    private void updateTrackedState(AbsListView absListView) {
+        mIsAtTop = isAtTop(absListView);
+        mIsAtBottom = isAtBottom(absListView);
+
+        final int childCount = absListView.getChildCount();
+        mTrackedFirstPosition = absListView.getFirstVisiblePosition();
+        mTrackedItemCount = absListView.getCount();
+        mTrackedChildCount = childCount;
+        mTrackedFirstChildTop = childCount > 0 ? absListView.getChildAt(0).getTop() : 0;
+        mTrackedLastChildBottom = childCount > 0
+                ? absListView.getChildAt(childCount - 1).getBottom() : 0;
+    }
+
+    /**
+     * @return true if the list is tracked, and hasn't moved or changed since the last scroll
+     *         callback.
+     */
+    private boolean isTrackedStateCurrent(AbsListView absListView) {
+        if (!isTracking(absListView)) return false;
+
+        final int childCount = absListView.getChildCount();
+        if (absListView.getFirstVisiblePosition() != mTrackedFirstPosition
+                || absListView.getCount() != mTrackedItemCount
+                || childCount != mTrackedChildCount) {
+            return false;
+        }
+        return childCount == 0
+                || (absListView.getChildAt(0).getTop() == mTrackedFirstChildTop
+                && absListView.getChildAt(childCount - 1).getBottom() == mTrackedLastChildBottom);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Items which are not laid out are assumed to have the average height of the visible items.
+     */
+    @Override
+    public int getDistanceToTop(View view) {
+        final AbsListView absListView = (AbsListView) view;
+        final int childCount = absListView.getChildCount();
+        if (absListView.getCount() == 0 || childCount == 0) {
+            return 0;
         }
 
-        return ready;
+        final View firstVisibleChild = absListView.getChildAt(0);
+        final int distance = Math.max(0,
+                absListView.getPaddingTop() - firstVisibleChild.getTop());
+        return distance + absListView.getFirstVisiblePosition() * getAverageItemHeight(absListView);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Items which are not laid out are assumed to have the average height of the visible items.
+     */
     @Override
-    public boolean isReadyForPullDown(View view, float x, float y) {
-        boolean ready = false;
+    public int getDistanceToBottom(View view) {
+        final AbsListView absListView = (AbsListView) view;
+        final int childCount = absListView.getChildCount();
+        if (absListView.getCount() == 0 || childCount == 0) {
+            return 0;
+        }
 
-        // First we check whether we're scrolled to the top
-        AbsListView absListView = (AbsListView) view;
+        final View lastVisibleChild = absListView.getChildAt(childCount - 1);
+        final int distance = Math.max(0, lastVisibleChild.getBottom()
+                - (absListView.getHeight() - absListView.getPaddingBottom()));
+        final int itemsBelow = absListView.getCount() - 1 - absListView.getLastVisiblePosition();
+        return distance + itemsBelow * getAverageItemHeight(absListView);
+    }
+
+    /**
+     * @return the average height of each visible item. For grids this is the row height divided
+     *         by the number of columns, so that it can be multiplied by an item count.
+     */
+    static int getAverageItemHeight(AbsListView absListView) {
+        final int childCount = absListView.getChildCount();
+        final int visibleHeight = absListView.getChildAt(childCount - 1).getBottom()
+                - absListView.getChildAt(0).getTop();
+        return visibleHeight / childCount;
+    }
+
+    static boolean isAtTop(AbsListView absListView) {
         if (absListView.getCount() == 0) {
-            ready = true;
-        } else if (absListView.getLastVisiblePosition() == absListView.getCount()-1) {
+            return true;
+        } else if (absListView.getFirstVisiblePosition() == 0) {
+            // Child positions are relative to the list, so compare them with its padded edge
+            final View firstVisibleChild = absListView.getChildAt(0);
+            return firstVisibleChild != null
+                    && firstVisibleChild.getTop() >= absListView.getPaddingTop();
+        }
+        return false;
+    }
 
+    static boolean isAtBottom(AbsListView absListView) {
+        final int count = absListView.getCount();
+        if (count == 0) {
+            return true;
+        } else if (absListView.getLastVisiblePosition() == count - 1) {
             final View lastVisibleChild = absListView.getChildAt(absListView.getChildCount() - 1);
-//            final View firstVisibleChild = absListView.getChildAt(0);
-            ready = lastVisibleChild != null && lastVisibleChild.getBottom() <= view.getBottom();
-            if (lastVisibleChild != null) {
-//                if (DEBUG) Log.d(LOG_TAG, "lastVisibleChild.getBottom(): " + lastVisibleChild.getBottom());
-//                if (DEBUG) Log.d(LOG_TAG, "view.getBottom(): " + view.getBottom());
-            }
+            return lastVisibleChild != null && lastVisibleChild.getBottom()
+                    <= absListView.getHeight() - absListView.getPaddingBottom();
         }
+        return false;
+    }
 
-//        if (DEBUG) Log.d(LOG_TAG, "ready: " + ready);
-//        if (DEBUG) Log.d(LOG_TAG, "absListView.getFirstVisiblePosition(): " + absListView.getFirstVisiblePosition());
-//        if (DEBUG) Log.d(LOG_TAG, "absListView.getLastVisiblePosition(): " + absListView.getLastVisiblePosition());
-//        if (DEBUG) Log.d(LOG_TAG, "absListView.getCount(): " + absListView.getCount());
-
-        // Then we have to check whether the fas scroller is enabled, and check we're not starting
-        // the gesture from the scroller
-        if (ready && absListView.isFastScrollEnabled() && isFastScrollAlwaysVisible(absListView)) {
+    boolean isTouchOnFastScroller(AbsListView absListView, float x) {
+        if (absListView.isFastScrollEnabled() && isFastScrollAlwaysVisible(absListView)) {
             switch (getVerticalScrollbarPosition(absListView)) {
                 case View.SCROLLBAR_POSITION_RIGHT:
-                    ready = x < absListView.getRight() - absListView.getVerticalScrollbarWidth();
-                    break;
+                    return x >= absListView.getRight() - absListView.getVerticalScrollbarWidth();
                 case View.SCROLLBAR_POSITION_LEFT:
-                    ready = x > absListView.getVerticalScrollbarWidth();
-                    break;
+                    return x <= absListView.getVerticalScrollbarWidth();
             }
         }
-
-        return ready;
-
+        return false;
     }
 
     int getVerticalScrollbarPosition(AbsListView absListView) {
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013 Chris Banes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.co.senab.actionbarpulltorefresh.library.viewdelegates;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.View;
+
+/**
+ * Fallback ViewDelegate, used for views which do not have a built-in delegate. It relies on
+ * {@link View#canScrollVertically(int)}, which works for any view that reports its scroll
+ * range correctly.
+ * <p/>
+ * Before ICS that method is not available, so only the scroll position is used: the view is ready
+ * to be pulled from the top when it is not scrolled, and never from the bottom.
+ */
+public class CanScrollVerticallyDelegate implements ViewDelegate {
+
+    @Override
+    public boolean isReadyForPull(View view, float x, float y) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH ?
+                !CompatV14.canScrollVertically(view, -1) :
+                view.getScrollY() <= 0;
+    }
+
+    @Override
+    public boolean isReadyForPullDown(View view, float x, float y) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH
+                && !CompatV14.canScrollVertically(view, 1);
+    }
+
+    @TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+    static class CompatV14 {
+        static boolean canScrollVertically(View view, int direction) {
+            return view.canScrollVertically(direction);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2013 Chris Banes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.co.senab.actionbarpulltorefresh.library.viewdelegates;
+
+import android.view.View;
+
+/**
+ * Optional extension of {@link ViewDelegate}, for delegates of views which contain other
+ * scrolling views, such as ViewPager, and forward to the delegates of those views. The attacher
+ * gives the delegate a {@link Resolver}, so that the views within the container are handled by
+ * the same delegates as refreshable views, including any custom delegates.
+ */
+public interface ContainerViewDelegate extends ViewDelegate {
+
+    /**
+     * Finds the delegate for a view within a container.
+     */
+    public interface Resolver {
+        /**
+         * @return the custom or built-in delegate for the view, or null if the view only has
+         *         the generic delegate.
+         */
+        public ViewDelegate getViewDelegate(View view);
+    }
+
+    /**
+     * Called by the attacher before the delegate is used.
+     */
+    public void setViewDelegateResolver(Resolver resolver);
+}
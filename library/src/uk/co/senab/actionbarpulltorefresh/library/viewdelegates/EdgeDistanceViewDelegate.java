@@ -0,0 +1,48 @@
+/*
+ * Copyright 2013 Chris Banes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.co.senab.actionbarpulltorefresh.library.viewdelegates;
+
+import android.view.View;
+
+/**
+ * Optional extension of {@link ViewDelegate}, for delegates which can report how far a view is
+ * from its edges rather than just whether it is at one. This allows work to be started just
+ * before the user reaches an edge.
+ */
+public interface EdgeDistanceViewDelegate extends ViewDelegate {
+
+    /**
+     * Returned when the distance to an edge can not be determined.
+     */
+    public static final int DISTANCE_UNKNOWN = -1;
+
+    /**
+     * @param view The view which should be checked against.
+     * @return the distance in pixels which <code>view</code> needs to scroll to reach its top
+     *         edge, 0 if it is at the top, or {@link #DISTANCE_UNKNOWN}. The distance may be an
+     *         estimate if the content is not all laid out.
+     */
+    public int getDistanceToTop(View view);
+
+    /**
+     * @param view The view which should be checked against.
+     * @return the distance in pixels which <code>view</code> needs to scroll to reach its bottom
+     *         edge, 0 if it is at the bottom, or {@link #DISTANCE_UNKNOWN}. The distance may be an
+     *         estimate if the content is not all laid out.
+     */
+    public int getDistanceToBottom(View view);
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2013 Chris Banes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.co.senab.actionbarpulltorefresh.library.viewdelegates;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+import android.view.View;
+
+/**
+ * ViewDelegate for RecyclerView. Works with {@link LinearLayoutManager} (including
+ * {@link android.support.v7.widget.GridLayoutManager}) and {@link StaggeredGridLayoutManager}.
+ * <p/>
+ * Rather than walking the children, each edge is checked by looking up the view of the first or
+ * last adapter item from the layout manager, so the cost does not depend on the number of items.
+ */
+public class RecyclerViewDelegate implements EdgeDistanceViewDelegate {
+
+    public static final Class[] SUPPORTED_VIEW_CLASSES = {RecyclerView.class};
+
+    @Override
+    public boolean isReadyForPull(View view, float x, float y) {
+        final RecyclerView recyclerView = (RecyclerView) view;
+        final RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+
+        if (layoutManager == null || !layoutManager.canScrollVertically()) {
+            return true;
+        }
+
+        final int itemCount = layoutManager.getItemCount();
+        if (itemCount == 0) {
+            return true;
+        }
+
+        // The item at the top edge is the last item when the layout is reversed
+        final View child = layoutManager.findViewByPosition(
+                isReverseLayout(layoutManager) ? itemCount - 1 : 0);
+        if (child == null) {
+            return false;
+        }
+
+        final RecyclerView.LayoutParams lp = (RecyclerView.LayoutParams) child.getLayoutParams();
+        return layoutManager.getDecoratedTop(child) - lp.topMargin
+                >= recyclerView.getPaddingTop();
+    }
+
+    @Override
+    public boolean isReadyForPullDown(View view, float x, float y) {
+        final RecyclerView recyclerView = (RecyclerView) view;
+        final RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+
+        if (layoutManager == null || !layoutManager.canScrollVertically()) {
+            return true;
+        }
+
+        final int itemCount = layoutManager.getItemCount();
+        if (itemCount == 0) {
+            return true;
+        }
+
+        // The item at the bottom edge is the first item when the layout is reversed
+        final View child = layoutManager.findViewByPosition(
+                isReverseLayout(layoutManager) ? 0 : itemCount - 1);
+        if (child == null) {
+            return false;
+        }
+
+        final RecyclerView.LayoutParams lp = (RecyclerView.LayoutParams) child.getLayoutParams();
+        return layoutManager.getDecoratedBottom(child) + lp.bottomMargin
+                <= recyclerView.getHeight() - recyclerView.getPaddingBottom();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * This uses the layout manager's scroll offset, which is an estimate for most layout managers.
+     */
+    @Override
+    public int getDistanceToTop(View view) {
+        final RecyclerView recyclerView = (RecyclerView) view;
+        if (recyclerView.getLayoutManager() == null) {
+            return 0;
+        }
+        return Math.max(0, recyclerView.computeVerticalScrollOffset());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * This uses the layout manager's scroll range, which is an estimate for most layout managers.
+     */
+    @Override
+    public int getDistanceToBottom(View view) {
+        final RecyclerView recyclerView = (RecyclerView) view;
+        if (recyclerView.getLayoutManager() == null) {
+            return 0;
+        }
+        return Math.max(0, recyclerView.computeVerticalScrollRange()
+                - recyclerView.computeVerticalScrollExtent()
+                - recyclerView.computeVerticalScrollOffset());
+    }
+
+    static boolean isReverseLayout(RecyclerView.LayoutManager layoutManager) {
+        if (layoutManager instanceof LinearLayoutManager) {
+            return ((LinearLayoutManager) layoutManager).getReverseLayout();
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            return ((StaggeredGridLayoutManager) layoutManager).getReverseLayout();
+        }
+        return false;
+    }
+}
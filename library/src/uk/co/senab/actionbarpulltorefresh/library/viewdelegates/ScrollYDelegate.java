@@ -17,14 +17,19 @@
 package uk.co.senab.actionbarpulltorefresh.library.viewdelegates;
 
 import android.view.View;
+import android.view.ViewGroup;
+import android.widget.HorizontalScrollView;
 import android.widget.ScrollView;
 
 /**
- * FIXME
+ * ViewDelegate for containers which scroll a single child, such as ScrollView.
+ * <p/>
+ * The bottom edge is found from the child's laid-out height, so no measure pass is needed.
  */
-public class ScrollYDelegate implements ViewDelegate {
+public class ScrollYDelegate implements EdgeDistanceViewDelegate {
 
-    public static final Class[] SUPPORTED_VIEW_CLASSES = {ScrollView.class};
+    public static final Class[] SUPPORTED_VIEW_CLASSES = {ScrollView.class,
+            HorizontalScrollView.class};
 
     @Override
     public boolean isReadyForPull(View view, float x, float y) {
@@ -33,6 +38,27 @@ public class ScrollYDelegate implements ViewDelegate {
 
     @Override
     public boolean isReadyForPullDown(View view, float x, float y) {
-        return view.getScrollY() <= 0; /*FIXME*/
+        return view.getScrollY() >= getScrollRange(view);
+    }
+
+    @Override
+    public int getDistanceToTop(View view) {
+        return Math.max(0, view.getScrollY());
+    }
+
+    @Override
+    public int getDistanceToBottom(View view) {
+        return Math.max(0, getScrollRange(view) - view.getScrollY());
+    }
+
+    static int getScrollRange(View view) {
+        if (!(view instanceof ViewGroup) || ((ViewGroup) view).getChildCount() == 0) {
+            return 0;
+        }
+
+        final View child = ((ViewGroup) view).getChildAt(0);
+        final int viewportHeight = view.getHeight() - view.getPaddingTop()
+                - view.getPaddingBottom();
+        return Math.max(0, child.getHeight() - viewportHeight);
     }
 }
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2013 Chris Banes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.co.senab.actionbarpulltorefresh.library.viewdelegates;
+
+import android.os.Build;
+import android.support.v4.view.ViewPager;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.view.ViewTreeObserver;
+import android.widget.HorizontalScrollView;
+import uk.co.senab.actionbarpulltorefresh.library.sdk.Compat;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.WeakHashMap;
+
+/**
+ * ViewDelegate for ViewPager, which forwards to the scrollable view within the page being
+ * touched. This allows a single PullToRefreshLayout (and header) to serve all of a pager's pages.
+ * <p/>
+ * The scrollable view of each page is found by a breadth-first search of the page, for the first
+ * view which has a delegate of its own, as given by the attacher's {@link Resolver}. So custom
+ * delegates are used for page content too. Views without one are only used if they can currently
+ * scroll vertically, with the generic delegate. The result is cached until the view is removed
+ * from the page, and a page without a scrollable view isn't searched again until the next layout
+ * pass.
+ * <p/>
+ * The caches are keyed weakly by view, and their values never reference the keys strongly, so
+ * pages and views which the pager has let go of are not kept alive.
+ */
+public class ViewPagerDelegate implements EdgeDistanceViewDelegate, ContainerViewDelegate {
+
+    public static final Class[] SUPPORTED_VIEW_CLASSES = {ViewPager.class};
+
+    private final CanScrollVerticallyDelegate mFallbackDelegate = new CanScrollVerticallyDelegate();
+    private Resolver mResolver;
+
+    /**
+     * The scrollable view of each page. The values are weak, as a descendant references its page
+     * through its parents.
+     */
+    private final WeakHashMap<View, WeakReference<View>> mScrollableViews
+            = new WeakHashMap<View, WeakReference<View>>();
+
+    /**
+     * The delegate of each scrollable view. The delegates only reference their views weakly, see
+     * {@link WebViewDelegate}.
+     */
+    private final WeakHashMap<View, ViewDelegate> mScrollableViewDelegates
+            = new WeakHashMap<View, ViewDelegate>();
+
+    /**
+     * Pages which had no scrollable view as of the last layout pass.
+     */
+    private final WeakHashMap<View, Boolean> mPagesWithoutScrollableView
+            = new WeakHashMap<View, Boolean>();
+
+    private WeakReference<View> mPager;
+    private ViewTreeObserver mViewTreeObserver;
+
+    private final int[] mOffset = new int[2];
+
+    @Override
+    public void setViewDelegateResolver(Resolver resolver) {
+        if (resolver != mResolver) {
+            mResolver = resolver;
+            mScrollableViews.clear();
+            mScrollableViewDelegates.clear();
+            mPagesWithoutScrollableView.clear();
+        }
+    }
+
+    @Override
+    public boolean isReadyForPull(View view, float x, float y) {
+        final View scrollableView = findScrollableView((ViewPager) view, x);
+        if (scrollableView == null) {
+            return true;
+        }
+        return getDelegate(scrollableView).isReadyForPull(scrollableView,
+                x - mOffset[0], y - mOffset[1]);
+    }
+
+    @Override
+    public boolean isReadyForPullDown(View view, float x, float y) {
+        final View scrollableView = findScrollableView((ViewPager) view, x);
+        if (scrollableView == null) {
+            return true;
+        }
+        return getDelegate(scrollableView).isReadyForPullDown(scrollableView,
+                x - mOffset[0], y - mOffset[1]);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * This is the distance for the current page, if its scrollable view's delegate supports it.
+     */
+    @Override
+    public int getDistanceToTop(View view) {
+        final ViewPager pager = (ViewPager) view;
+        final View scrollableView = findScrollableView(pager, pager.getWidth() / 2f);
+        if (scrollableView == null) {
+            return 0;
+        }
+        final ViewDelegate delegate = getDelegate(scrollableView);
+        return delegate instanceof EdgeDistanceViewDelegate
+                ? ((EdgeDistanceViewDelegate) delegate).getDistanceToTop(scrollableView)
+                : DISTANCE_UNKNOWN;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * This is the distance for the current page, if its scrollable view's delegate supports it.
+     */
+    @Override
+    public int getDistanceToBottom(View view) {
+        final ViewPager pager = (ViewPager) view;
+        final View scrollableView = findScrollableView(pager, pager.getWidth() / 2f);
+        if (scrollableView == null) {
+            return 0;
+        }
+        final ViewDelegate delegate = getDelegate(scrollableView);
+        return delegate instanceof EdgeDistanceViewDelegate
+                ? ((EdgeDistanceViewDelegate) delegate).getDistanceToBottom(scrollableView)
+                : DISTANCE_UNKNOWN;
+    }
+
+    /**
+     * Find the scrollable view within the page under {@code x}, and store its offset from the
+     * pager in {@link #mOffset}.
+     */
+    private View findScrollableView(ViewPager pager, float x) {
+        final View page = findPageAt(pager, x);
+        if (page == null) {
+            return null;
+        }
+        listenForLayouts(pager);
+
+        View scrollableView;
+        if (mPagesWithoutScrollableView.containsKey(page)) {
+            scrollableView = page;
+        } else {
+            final WeakReference<View> scrollableViewRef = mScrollableViews.get(page);
+            scrollableView = scrollableViewRef != null ? scrollableViewRef.get() : null;
+            if (scrollableView == null || !isDescendant(page, scrollableView)) {
+                scrollableView = findScrollableDescendant(page);
+                if (scrollableView != null) {
+                    mScrollableViews.put(page, new WeakReference<View>(scrollableView));
+                } else {
+                    // A scrolling view may be added later, which needs a layout pass
+                    scrollableView = page;
+                    mScrollableViews.remove(page);
+                    mPagesWithoutScrollableView.put(page, Boolean.TRUE);
+                }
+            }
+        }
+
+        // Work out the offset of the scrollable view within the pager's visible area
+        int left = 0, top = 0;
+        for (View v = scrollableView; v != pager; ) {
+            final View parent = (View) v.getParent();
+            left += v.getLeft() - parent.getScrollX();
+            top += v.getTop() - parent.getScrollY();
+            v = parent;
+        }
+        mOffset[0] = left;
+        mOffset[1] = top;
+
+        return scrollableView;
+    }
+
+    /**
+     * Make sure that we're listening for layout passes of the tree which the pager is currently
+     * attached to, so that pages without a scrollable view are searched again after one.
+     */
+    private void listenForLayouts(ViewPager pager) {
+        final ViewTreeObserver vto = pager.getViewTreeObserver();
+        if (mPager == null || pager != mPager.get() || vto != mViewTreeObserver) {
+            stopListening();
+            vto.addOnGlobalLayoutListener(mLayoutListener);
+            mViewTreeObserver = vto;
+            mPager = new WeakReference<View>(pager);
+        }
+    }
+
+    private void stopListening() {
+        if (mViewTreeObserver != null && mViewTreeObserver.isAlive()) {
+            Compat.removeGlobalOnLayoutListener(mViewTreeObserver, mLayoutListener);
+        }
+        mViewTreeObserver = null;
+        mPagesWithoutScrollableView.clear();
+    }
+
+    private final ViewTreeObserver.OnGlobalLayoutListener mLayoutListener
+            = new ViewTreeObserver.OnGlobalLayoutListener() {
+        @Override
+        public void onGlobalLayout() {
+            mPagesWithoutScrollableView.clear();
+
+            // Stop listening once the pager has gone, it will be listened to again if it is
+            // re-attached and touched
+            final View pager = mPager != null ? mPager.get() : null;
+            if (pager == null || pager.getWindowToken() == null) {
+                stopListening();
+            }
+        }
+    };
+
+    private static View findPageAt(ViewPager pager, float x) {
+        final float scrolledX = x + pager.getScrollX();
+        for (int i = 0, z = pager.getChildCount(); i < z; i++) {
+            final View child = pager.getChildAt(i);
+            final ViewPager.LayoutParams lp = (ViewPager.LayoutParams) child.getLayoutParams();
+            if (!lp.isDecor && child.getVisibility() == View.VISIBLE
+                    && scrolledX >= child.getLeft() && scrolledX < child.getRight()) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isDescendant(View ancestor, View view) {
+        if (view == ancestor) {
+            return true;
+        }
+        for (ViewParent parent = view.getParent(); parent != null; parent = parent.getParent()) {
+            if (parent == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the first view within {@code page}, in breadth-first order, which is a scrolling
+     *         view, or null if there isn't one.
+     */
+    private View findScrollableDescendant(View page) {
+        final ArrayList<View> queue = new ArrayList<View>();
+        queue.add(page);
+        for (int i = 0; i < queue.size(); i++) {
+            final View view = queue.get(i);
+            if (view.getVisibility() != View.VISIBLE) {
+                continue;
+            }
+            final ViewDelegate delegate = mResolver != null
+                    ? mResolver.getViewDelegate(view) : null;
+            if (delegate != null && !(view instanceof HorizontalScrollView)) {
+                // HorizontalScrollView has a delegate so that it can be pulled itself, but it
+                // never scrolls vertically, so doesn't hold the page's vertical content
+                mScrollableViewDelegates.put(view, delegate);
+                return view;
+            }
+            if (delegate == null && canScrollVertically(view)) {
+                mScrollableViewDelegates.put(view, mFallbackDelegate);
+                return view;
+            }
+            if (view instanceof ViewGroup) {
+                final ViewGroup group = (ViewGroup) view;
+                for (int j = 0, z = group.getChildCount(); j < z; j++) {
+                    queue.add(group.getChildAt(j));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Views without a delegate of their own are found if they currently have content to scroll.
+     */
+    private static boolean canScrollVertically(View view) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH
+                && (CanScrollVerticallyDelegate.CompatV14.canScrollVertically(view, 1)
+                || CanScrollVerticallyDelegate.CompatV14.canScrollVertically(view, -1));
+    }
+
+    private ViewDelegate getDelegate(View scrollableView) {
+        final ViewDelegate delegate = mScrollableViewDelegates.get(scrollableView);
+        // The page itself, when it has no scrollable view, uses the generic delegate
+        return delegate != null ? delegate : mFallbackDelegate;
+    }
+}
@@ -17,15 +17,32 @@
 package uk.co.senab.actionbarpulltorefresh.library.viewdelegates;
 
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.webkit.WebView;
+import uk.co.senab.actionbarpulltorefresh.library.sdk.Compat;
+
+import java.lang.ref.WeakReference;
 
 /**
- * FIXME
+ * ViewDelegate for WebView.
+ * <p/>
+ * The bottom edge is found by comparing the scroll position against the scaled content height.
+ * Those metrics are cached, and only recomputed after the WebView's view tree has scrolled or
+ * been laid out, or the content height has changed (such as while a page loads), rather than on
+ * every touch. The WebView is only weakly referenced, so that the delegate doesn't keep it alive.
+ * The listeners are removed from the view tree once the WebView has been detached from it or
+ * garbage collected.
  */
-public class WebViewDelegate implements ViewDelegate {
+public class WebViewDelegate implements EdgeDistanceViewDelegate {
 
     public static final Class[] SUPPORTED_VIEW_CLASSES = {WebView.class};
 
+    private WeakReference<WebView> mWebView;
+    private ViewTreeObserver mViewTreeObserver;
+    private int mContentHeight;
+    private int mMaxScrollY;
+    private boolean mMetricsDirty = true;
+
     @Override
     public boolean isReadyForPull(View view, float x, float y) {
         return view.getScrollY() <= 0;
@@ -33,6 +50,78 @@ public class WebViewDelegate implements ViewDelegate {
 
     @Override
     public boolean isReadyForPullDown(View view, float x, float y) {
-        return view.getScrollY() <= 0;/*FIXME*/
+        final WebView webView = (WebView) view;
+        updateMetricsIfNeeded(webView);
+        return webView.getScrollY() >= mMaxScrollY;
+    }
+
+    @Override
+    public int getDistanceToTop(View view) {
+        return Math.max(0, view.getScrollY());
+    }
+
+    @Override
+    public int getDistanceToBottom(View view) {
+        final WebView webView = (WebView) view;
+        updateMetricsIfNeeded(webView);
+        return Math.max(0, mMaxScrollY - webView.getScrollY());
+    }
+
+    private void updateMetricsIfNeeded(WebView webView) {
+        // Make sure that we're listening to the tree which this WebView is currently attached to
+        final ViewTreeObserver vto = webView.getViewTreeObserver();
+        if (mWebView == null || webView != mWebView.get() || vto != mViewTreeObserver) {
+            stopListening();
+            vto.addOnGlobalLayoutListener(mViewTreeListener);
+            vto.addOnScrollChangedListener(mViewTreeListener);
+            mViewTreeObserver = vto;
+            mWebView = new WeakReference<WebView>(webView);
+            mMetricsDirty = true;
+        }
+
+        // The content height grows while a page loads, without a scroll or layout callback
+        final int contentHeight = webView.getContentHeight();
+        if (mMetricsDirty || contentHeight != mContentHeight) {
+            // getContentHeight() is in CSS pixels, so needs scaling to the current zoom level
+            final int scaledContentHeight = (int) Math.floor(
+                    contentHeight * Compat.getScale(webView));
+            mMaxScrollY = Math.max(0, scaledContentHeight - webView.getHeight());
+            mContentHeight = contentHeight;
+            mMetricsDirty = false;
+        }
+    }
+
+    private void stopListening() {
+        if (mViewTreeObserver != null && mViewTreeObserver.isAlive()) {
+            Compat.removeGlobalOnLayoutListener(mViewTreeObserver, mViewTreeListener);
+            mViewTreeObserver.removeOnScrollChangedListener(mViewTreeListener);
+        }
+        mViewTreeObserver = null;
+    }
+
+    private final ViewTreeListener mViewTreeListener = new ViewTreeListener();
+
+    private class ViewTreeListener implements ViewTreeObserver.OnGlobalLayoutListener,
+            ViewTreeObserver.OnScrollChangedListener {
+        @Override
+        public void onGlobalLayout() {
+            onViewTreeChanged();
+        }
+
+        @Override
+        public void onScrollChanged() {
+            onViewTreeChanged();
+        }
+
+        private void onViewTreeChanged() {
+            mMetricsDirty = true;
+
+            // Stop listening once the WebView has gone, it will be listened to again if it is
+            // re-attached and touched
+            final WebView webView = mWebView != null ? mWebView.get() : null;
+            if (webView == null || webView.getWindowToken() == null) {
+                stopListening();
+            }
+        }
     }
 }